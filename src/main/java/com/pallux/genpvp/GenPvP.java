@@ -5,6 +5,10 @@ import com.pallux.genpvp.commands.AliasCommands;
 import com.pallux.genpvp.listeners.*;
 import com.pallux.genpvp.managers.*;
 import com.pallux.genpvp.placeholders.GenPvPPlaceholders;
+import com.pallux.genpvp.storage.MySqlStorage;
+import com.pallux.genpvp.storage.SqliteStorage;
+import com.pallux.genpvp.storage.StorageBackend;
+import com.pallux.genpvp.storage.YamlStorage;
 import com.pallux.genpvp.utils.ColorUtil;
 import net.milkbowl.vault.economy.Economy;
 import org.bukkit.Bukkit;
@@ -13,12 +17,26 @@ import org.bukkit.plugin.RegisteredServiceProvider;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitTask;
 
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 
 public class GenPvP extends JavaPlugin {
 
+    private static final long ASYNC_TASK_TIMEOUT_SECONDS = 30;
+
     private static GenPvP instance;
 
+    // Async storage work still running (auto-save writes, booster writes, player lookups, leaderboards)
+    private final Set<CompletableFuture<Void>> asyncTasks = ConcurrentHashMap.newKeySet();
+
+    // Storage
+    private StorageBackend storage;
+
     // Managers
     private ConfigManager configManager;
     private DataManager dataManager;
@@ -31,6 +49,8 @@ public class GenPvP extends JavaPlugin {
     private DefenseManager defenseManager;
     private DefenseDataManager defenseDataManager;
     private RaidManager raidManager;
+    private CollectorManager collectorManager;
+    private BoosterManager boosterManager;
 
     // Economy
     private Economy economy;
@@ -79,7 +99,10 @@ public class GenPvP extends JavaPlugin {
         }
 
         // Initialize managers
-        initManagers();
+        if (!initManagers()) {
+            getServer().getPluginManager().disablePlugin(this);
+            return;
+        }
 
         // Register commands
         registerCommands();
@@ -96,16 +119,40 @@ public class GenPvP extends JavaPlugin {
         // Start auto-save task
         dataManager.startAutoSaveTask();
 
+        // Start leaderboard refreshes (player data is only in memory for active players)
+        statisticsManager.startLeaderboardTask();
+
         // Start armor effect task
         startArmorEffectTask();
 
+        // Start permission multiplier rechecks
+        boosterManager.startPermissionTask();
+
         getLogger().info("GenPvP has been enabled successfully!");
     }
 
     @Override
     public void onDisable() {
+        // Stop the generator task first, it applies output that is still being planned
+        if (generatorManager != null) {
+            generatorManager.stopGeneratorTask();
+        }
+
+        // Leaderboard refreshes read from storage, which is closed below
+        if (statisticsManager != null) {
+            statisticsManager.stopLeaderboardTask();
+        }
+
+        // Stop the auto-save, then let async writes and lookups finish so none of them
+        // writes an older state after the final save or runs into closed storage
+        if (dataManager != null) {
+            dataManager.stopAutoSaveTask();
+        }
+        awaitAsyncTasks();
+
         // Save all data
         if (dataManager != null) {
+            dataManager.flushPendingSaves();
             dataManager.saveAllData();
             getLogger().info("All player data saved!");
         }
@@ -116,9 +163,26 @@ public class GenPvP extends JavaPlugin {
             getLogger().info("All defense blocks saved!");
         }
 
+        // Save collectors
+        if (collectorManager != null) {
+            collectorManager.saveCollectors();
+            getLogger().info("All collectors saved!");
+        }
+
+        // Save boosters
+        if (boosterManager != null) {
+            boosterManager.saveBoosters();
+            getLogger().info("All boosters saved!");
+        }
+
+        // Close storage after the final save
+        if (storage != null) {
+            storage.close();
+        }
+
         // Stop tasks
-        if (generatorManager != null) {
-            generatorManager.stopGeneratorTask();
+        if (boosterManager != null) {
+            boosterManager.stopPermissionTask();
         }
 
         if (armorEffectTask != null) {
@@ -128,13 +192,22 @@ public class GenPvP extends JavaPlugin {
         getLogger().info("GenPvP has been disabled!");
     }
 
-    private void initManagers() {
+    private boolean initManagers() {
         getLogger().info("Initializing managers...");
 
         // Config manager must be first
         configManager = new ConfigManager(this);
         configManager.loadConfigs();
 
+        // Storage before the data managers
+        storage = createStorage();
+        if (!storage.init()) {
+            getLogger().severe(storage.getName() + " storage could not be opened! Disabling plugin...");
+            storage = null;
+            return false;
+        }
+        getLogger().info("Using " + storage.getName() + " storage!");
+
         // WorldGuard manager (must be before listeners)
         worldGuardManager = new WorldGuardManager(this);
 
@@ -146,6 +219,14 @@ public class GenPvP extends JavaPlugin {
         defenseDataManager = new DefenseDataManager(this);
         defenseDataManager.loadDefenseBlocks();
 
+        // Collector manager
+        collectorManager = new CollectorManager(this);
+        collectorManager.loadCollectors();
+
+        // Booster manager
+        boosterManager = new BoosterManager(this);
+        boosterManager.loadBoosters();
+
         // Game managers
         generatorManager = new GeneratorManager(this);
         levelManager = new LevelManager(this);
@@ -156,6 +237,29 @@ public class GenPvP extends JavaPlugin {
         raidManager = new RaidManager(this);
 
         getLogger().info("All managers initialized!");
+        return true;
+    }
+
+    /**
+     * Creates the backend for storage.type, a change only takes effect after a restart
+     */
+    private StorageBackend createStorage() {
+        String type = configManager.getStorageType().toUpperCase();
+
+        switch (type) {
+            case "SQLITE":
+                return new SqliteStorage(this);
+
+            case "MYSQL":
+                return new MySqlStorage(this);
+
+            case "YAML":
+                return new YamlStorage(this);
+
+            default:
+                getLogger().warning("Storage type " + type + " is not supported, using YAML!");
+                return new YamlStorage(this);
+        }
     }
 
     private void registerCommands() {
@@ -210,6 +314,10 @@ public class GenPvP extends JavaPlugin {
         getServer().getPluginManager().registerEvents(new GUIListener(this), this);
         getServer().getPluginManager().registerEvents(new DefenseListener(this), this);
         getServer().getPluginManager().registerEvents(new RaidListener(this), this);
+        getServer().getPluginManager().registerEvents(new ChunkListener(this), this);
+        getServer().getPluginManager().registerEvents(new GeneratorItemListener(this), this);
+        getServer().getPluginManager().registerEvents(new HopperListener(this), this);
+        getServer().getPluginManager().registerEvents(new CollectorListener(this), this);
 
         // Register armor listeners
         armorListener = new ArmorListener(this);
@@ -268,6 +376,8 @@ public class GenPvP extends JavaPlugin {
         // Save data before reload
         dataManager.saveAllData();
         defenseDataManager.saveDefenseBlocks();
+        collectorManager.saveCollectors();
+        boosterManager.saveBoosters();
 
         // Reload configs
         configManager.loadConfigs();
@@ -285,14 +395,80 @@ public class GenPvP extends JavaPlugin {
         }
         startArmorEffectTask();
 
+        // Re-resolve permission multipliers with the new settings
+        boosterManager.startPermissionTask();
+
+        // Restart leaderboard refreshes with the new interval
+        statisticsManager.startLeaderboardTask();
+
         getLogger().info("GenPvP reloaded successfully!");
     }
 
+    /**
+     * Runs storage work on an async task. The task is tracked so disabling waits for it
+     * before the final save, runs right away once the plugin is disabled.
+     */
+    public CompletableFuture<Void> runAsync(Runnable task) {
+        if (!isEnabled()) {
+            task.run();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        asyncTasks.add(future);
+        future.whenComplete((result, e) -> asyncTasks.remove(future));
+
+        Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+            try {
+                task.run();
+                future.complete(null);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+                throw e;
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Waits for the async storage work that is still running (called on disable)
+     */
+    private void awaitAsyncTasks() {
+        CompletableFuture<?>[] tasks = asyncTasks.toArray(new CompletableFuture<?>[0]);
+        if (tasks.length == 0) return;
+
+        try {
+            CompletableFuture.allOf(tasks).get(ASYNC_TASK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            getLogger().severe(asyncTasks.size() + " async storage tasks did not finish in time!");
+        } catch (ExecutionException e) {
+            // The task logged its own error, the final save still runs
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs a task on the main thread, right away if already on it.
+     * Dropped once the plugin is disabled, nothing is scheduled anymore.
+     */
+    public void runOnMainThread(Runnable task) {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+        } else if (isEnabled()) {
+            Bukkit.getScheduler().runTask(this, task);
+        }
+    }
+
     // Getters
     public static GenPvP getInstance() {
         return instance;
     }
 
+    public StorageBackend getStorage() {
+        return storage;
+    }
+
     public ConfigManager getConfigManager() {
         return configManager;
     }
@@ -337,6 +513,14 @@ public class GenPvP extends JavaPlugin {
         return raidManager;
     }
 
+    public CollectorManager getCollectorManager() {
+        return collectorManager;
+    }
+
+    public BoosterManager getBoosterManager() {
+        return boosterManager;
+    }
+
     public Economy getEconomy() {
         return economy;
     }
@@ -2,9 +2,11 @@ package com.pallux.genpvp.commands;
 
 import com.pallux.genpvp.GenPvP;
 import com.pallux.genpvp.guis.*;
+import com.pallux.genpvp.managers.BoosterManager;
 import com.pallux.genpvp.utils.ColorUtil;
 import com.pallux.genpvp.utils.PlayerData;
 import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -15,6 +17,7 @@ import org.bukkit.inventory.ItemStack;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 public class GenPvPCommand implements CommandExecutor, TabCompleter {
@@ -47,6 +50,12 @@ public class GenPvPCommand implements CommandExecutor, TabCompleter {
             case "defense":
                 return handleDefenseCommand(sender, args);
 
+            case "collector":
+                return handleCollectorCommand(sender, args);
+
+            case "booster":
+                return handleBoosterCommand(sender, args);
+
             case "level":
                 return handleLevelCommand(sender, args);
 
@@ -179,6 +188,171 @@ public class GenPvPCommand implements CommandExecutor, TabCompleter {
         return true;
     }
 
+    private boolean handleCollectorCommand(CommandSender sender, String[] args) {
+        if (args.length < 2 || !args[1].equalsIgnoreCase("give")) {
+            sender.sendMessage(plugin.getConfigManager().getMessage("prefix") +
+                    " &#FFFF00Usage: /gpvp collector give <player> <amount>");
+            return true;
+        }
+
+        if (!sender.hasPermission("gpvp.collector.give")) {
+            sender.sendMessage(plugin.getConfigManager().getMessage("no-permission"));
+            return true;
+        }
+
+        if (args.length < 4) {
+            sender.sendMessage(plugin.getConfigManager().getMessage("prefix") +
+                    " &#FFFF00Usage: /gpvp collector give <player> <amount>");
+            return true;
+        }
+
+        Player target = Bukkit.getPlayer(args[2]);
+        if (target == null) {
+            sender.sendMessage(plugin.getConfigManager()
+                    .getMessage("player-not-found", "{player}", args[2]));
+            return true;
+        }
+
+        int amount;
+
+        try {
+            amount = Integer.parseInt(args[3]);
+        } catch (NumberFormatException e) {
+            sender.sendMessage(plugin.getConfigManager().getMessage("invalid-amount"));
+            return true;
+        }
+
+        if (amount <= 0) {
+            sender.sendMessage(plugin.getConfigManager().getMessage("invalid-amount"));
+            return true;
+        }
+
+        target.getInventory().addItem(plugin.getCollectorManager().createCollectorItem(amount));
+
+        sender.sendMessage(plugin.getConfigManager()
+                .getMessage("collector.given", "{amount}", String.valueOf(amount), "{player}", target.getName()));
+
+        target.sendMessage(plugin.getConfigManager()
+                .getMessage("collector.received", "{amount}", String.valueOf(amount)));
+
+        return true;
+    }
+
+    private boolean handleBoosterCommand(CommandSender sender, String[] args) {
+        if (args.length >= 2 && args[1].equalsIgnoreCase("clear")) {
+            return handleBoosterClear(sender, args);
+        }
+
+        if (args.length < 2 || !args[1].equalsIgnoreCase("give")) {
+            sender.sendMessage(plugin.getConfigManager().getMessage("prefix") +
+                    " &#FFFF00Usage: /gpvp booster <give|clear> <player|all> [money|gems] [multiplier] [minutes]");
+            return true;
+        }
+
+        if (!sender.hasPermission("gpvp.booster.give")) {
+            sender.sendMessage(plugin.getConfigManager().getMessage("no-permission"));
+            return true;
+        }
+
+        if (args.length < 6) {
+            sender.sendMessage(plugin.getConfigManager().getMessage("prefix") +
+                    " &#FFFF00Usage: /gpvp booster give <player|all> <money|gems> <multiplier> <minutes>");
+            return true;
+        }
+
+        // "all" starts a global booster
+        Player target = null;
+        if (!args[2].equalsIgnoreCase("all")) {
+            target = Bukkit.getPlayer(args[2]);
+            if (target == null) {
+                sender.sendMessage(plugin.getConfigManager()
+                        .getMessage("player-not-found", "{player}", args[2]));
+                return true;
+            }
+        }
+
+        BoosterManager.Type type;
+        try {
+            type = BoosterManager.Type.valueOf(args[3].toUpperCase());
+        } catch (IllegalArgumentException e) {
+            sender.sendMessage(plugin.getConfigManager().getMessage("booster.invalid-type"));
+            return true;
+        }
+
+        double multiplier;
+        int minutes;
+
+        try {
+            multiplier = Double.parseDouble(args[4]);
+            minutes = Integer.parseInt(args[5]);
+        } catch (NumberFormatException e) {
+            sender.sendMessage(plugin.getConfigManager().getMessage("invalid-amount"));
+            return true;
+        }
+
+        if (multiplier <= 0 || Double.isInfinite(multiplier) || Double.isNaN(multiplier) || minutes <= 0) {
+            sender.sendMessage(plugin.getConfigManager().getMessage("invalid-amount"));
+            return true;
+        }
+
+        BoosterManager boosterManager = plugin.getBoosterManager();
+        boosterManager.startBooster(target != null ? target.getUniqueId() : null, type, multiplier, minutes * 60_000L);
+
+        String typeName = boosterManager.formatType(type);
+        String multiplierText = BoosterManager.formatMultiplier(multiplier);
+        String duration = ColorUtil.formatTime(minutes * 60L);
+
+        if (target == null) {
+            ColorUtil.broadcast(plugin.getConfigManager().getMessage("booster.global-started",
+                    "{type}", typeName, "{multiplier}", multiplierText, "{duration}", duration));
+            return true;
+        }
+
+        sender.sendMessage(plugin.getConfigManager().getMessage("booster.given", "{player}", target.getName(),
+                "{type}", typeName, "{multiplier}", multiplierText, "{duration}", duration));
+
+        target.sendMessage(plugin.getConfigManager().getMessage("booster.received",
+                "{type}", typeName, "{multiplier}", multiplierText, "{duration}", duration));
+
+        return true;
+    }
+
+    private boolean handleBoosterClear(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("gpvp.booster.clear")) {
+            sender.sendMessage(plugin.getConfigManager().getMessage("no-permission"));
+            return true;
+        }
+
+        if (args.length < 3) {
+            sender.sendMessage(plugin.getConfigManager().getMessage("prefix") +
+                    " &#FFFF00Usage: /gpvp booster clear <player|all>");
+            return true;
+        }
+
+        // Boosters are kept per UUID, so offline players can be cleared too
+        UUID owner = null;
+        String name = args[2];
+        if (!args[2].equalsIgnoreCase("all")) {
+            OfflinePlayer target = Bukkit.getOfflinePlayer(args[2]);
+            owner = target.getUniqueId();
+            if (target.getName() != null) {
+                name = target.getName();
+            }
+        }
+
+        int cleared = plugin.getBoosterManager().clearBoosters(owner);
+
+        if (owner == null) {
+            sender.sendMessage(plugin.getConfigManager().getMessage("booster.cleared-global",
+                    "{amount}", String.valueOf(cleared)));
+        } else {
+            sender.sendMessage(plugin.getConfigManager().getMessage("booster.cleared",
+                    "{amount}", String.valueOf(cleared), "{player}", name));
+        }
+
+        return true;
+    }
+
     private boolean handleDefenseCommand(CommandSender sender, String[] args) {
         if (args.length < 2) {
             sender.sendMessage(plugin.getConfigManager().getMessage("prefix") +
@@ -724,6 +898,9 @@ public class GenPvPCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(ColorUtil.colorize("&#FFFF00/gpvp gen giveall <tier> <amount> &#808080- Give all generator"));
         sender.sendMessage(ColorUtil.colorize("&#FFFF00/gpvp defense give <player> <tier> <amount> &#808080- Give defense"));
         sender.sendMessage(ColorUtil.colorize("&#FFFF00/gpvp defense giveall <tier> <amount> &#808080- Give all defense"));
+        sender.sendMessage(ColorUtil.colorize("&#FFFF00/gpvp collector give <player> <amount> &#808080- Give collector"));
+        sender.sendMessage(ColorUtil.colorize("&#FFFF00/gpvp booster give <player|all> <money|gems> <multiplier> <minutes> &#808080- Start booster"));
+        sender.sendMessage(ColorUtil.colorize("&#FFFF00/gpvp booster clear <player|all> &#808080- End boosters"));
         sender.sendMessage(ColorUtil.colorize("&#FFFF00/gpvp cube give <player> <rarity> <amount> &#808080- Give cube"));
         sender.sendMessage(ColorUtil.colorize("&#FFFF00/gpvp cube giveall <rarity> <amount> &#808080- Give all cube"));
         sender.sendMessage(ColorUtil.colorize("&#FFFF00/gpvp armor give <player> <armor_piece> &#808080- Give armor"));
@@ -741,7 +918,7 @@ public class GenPvPCommand implements CommandExecutor, TabCompleter {
         List<String> completions = new ArrayList<>();
 
         if (args.length == 1) {
-            completions.addAll(Arrays.asList("gen", "defense", "cube", "armor", "level", "shop", "armory", "gems", "stats", "reload"));
+            completions.addAll(Arrays.asList("gen", "defense", "collector", "booster", "cube", "armor", "level", "shop", "armory", "gems", "stats", "reload"));
         } else if (args.length == 2) {
             if (args[0].equalsIgnoreCase("gen")) {
                 completions.addAll(Arrays.asList("give", "giveall"));
@@ -749,6 +926,10 @@ public class GenPvPCommand implements CommandExecutor, TabCompleter {
                 completions.addAll(Arrays.asList("give", "giveall"));
             } else if (args[0].equalsIgnoreCase("cube")) {
                 completions.addAll(Arrays.asList("give", "giveall"));
+            } else if (args[0].equalsIgnoreCase("collector")) {
+                completions.addAll(Arrays.asList("give"));
+            } else if (args[0].equalsIgnoreCase("booster")) {
+                completions.addAll(Arrays.asList("give", "clear"));
             } else if (args[0].equalsIgnoreCase("armor")) {
                 completions.addAll(Arrays.asList("give"));
             } else if (args[0].equalsIgnoreCase("gems")) {
@@ -777,6 +958,15 @@ public class GenPvPCommand implements CommandExecutor, TabCompleter {
                         .collect(Collectors.toList()));
             } else if (args[0].equalsIgnoreCase("cube") && args[1].equalsIgnoreCase("giveall")) {
                 completions.addAll(Arrays.asList("common", "uncommon", "rare", "epic", "legendary"));
+            } else if (args[0].equalsIgnoreCase("collector") && args[1].equalsIgnoreCase("give")) {
+                completions.addAll(Bukkit.getOnlinePlayers().stream()
+                        .map(Player::getName)
+                        .collect(Collectors.toList()));
+            } else if (args[0].equalsIgnoreCase("booster")) {
+                completions.add("all");
+                completions.addAll(Bukkit.getOnlinePlayers().stream()
+                        .map(Player::getName)
+                        .collect(Collectors.toList()));
             } else if (args[0].equalsIgnoreCase("armor") && args[1].equalsIgnoreCase("give")) {
                 completions.addAll(Bukkit.getOnlinePlayers().stream()
                         .map(Player::getName)
@@ -803,6 +993,10 @@ public class GenPvPCommand implements CommandExecutor, TabCompleter {
                 completions.addAll(Arrays.asList("common", "uncommon", "rare", "epic", "legendary"));
             } else if (args[0].equalsIgnoreCase("cube") && args[1].equalsIgnoreCase("giveall")) {
                 completions.addAll(Arrays.asList("1", "8", "16", "32", "64"));
+            } else if (args[0].equalsIgnoreCase("collector") && args[1].equalsIgnoreCase("give")) {
+                completions.addAll(Arrays.asList("1", "8", "16", "32", "64"));
+            } else if (args[0].equalsIgnoreCase("booster") && args[1].equalsIgnoreCase("give")) {
+                completions.addAll(Arrays.asList("money", "gems"));
             } else if (args[0].equalsIgnoreCase("armor") && args[1].equalsIgnoreCase("give")) {
                 completions.addAll(Arrays.asList(
                         "blaze_helmet", "blaze_chestplate", "blaze_leggings", "blaze_boots",
@@ -812,13 +1006,19 @@ public class GenPvPCommand implements CommandExecutor, TabCompleter {
                 ));
             }
         } else if (args.length == 5) {
-            if (args[0].equalsIgnoreCase("gen") && args[1].equalsIgnoreCase("give")) {
+            if (args[0].equalsIgnoreCase("booster") && args[1].equalsIgnoreCase("give")) {
+                completions.addAll(Arrays.asList("1.5", "2", "3"));
+            } else if (args[0].equalsIgnoreCase("gen") && args[1].equalsIgnoreCase("give")) {
                 completions.addAll(Arrays.asList("1", "8", "16", "32", "64"));
             } else if (args[0].equalsIgnoreCase("defense") && args[1].equalsIgnoreCase("give")) {
                 completions.addAll(Arrays.asList("1", "8", "16", "32", "64"));
             } else if (args[0].equalsIgnoreCase("cube") && args[1].equalsIgnoreCase("give")) {
                 completions.addAll(Arrays.asList("1", "8", "16", "32", "64"));
             }
+        } else if (args.length == 6) {
+            if (args[0].equalsIgnoreCase("booster") && args[1].equalsIgnoreCase("give")) {
+                completions.addAll(Arrays.asList("15", "30", "60"));
+            }
         }
 
         return completions.stream()
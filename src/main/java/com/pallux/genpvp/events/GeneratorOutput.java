@@ -0,0 +1,77 @@
+package com.pallux.genpvp.events;
+
+import org.bukkit.Location;
+
+import java.util.UUID;
+
+/**
+ * Output of one generator (or stack of generators) for one cycle, as seen by GeneratorProduceEvent.
+ * Money and gems can be changed by listeners, setting both to 0 skips the output.
+ */
+public class GeneratorOutput {
+
+    private final Location location;
+    private final UUID owner;
+    private final int tier;
+    private final int count;
+    private long money;
+    private long gems;
+
+    public GeneratorOutput(Location location, UUID owner, int tier, int count, long money, long gems) {
+        this.location = location;
+        this.owner = owner;
+        this.tier = tier;
+        this.count = count;
+        this.money = money;
+        this.gems = gems;
+    }
+
+    /**
+     * Block location of the generator
+     */
+    public Location getLocation() {
+        return location;
+    }
+
+    /**
+     * Owner of the generator, null for generators without an owner
+     */
+    public UUID getOwner() {
+        return owner;
+    }
+
+    public int getTier() {
+        return tier;
+    }
+
+    /**
+     * Number of generators stacked in the block
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public long getMoney() {
+        return money;
+    }
+
+    public void setMoney(long money) {
+        this.money = Math.max(0, money);
+    }
+
+    public long getGems() {
+        return gems;
+    }
+
+    public void setGems(long gems) {
+        this.gems = Math.max(0, gems);
+    }
+
+    /**
+     * Multiplies money and gems (gems are rounded down)
+     */
+    public void multiply(double multiplier) {
+        setMoney((long) (money * multiplier));
+        setGems((long) (gems * multiplier));
+    }
+}
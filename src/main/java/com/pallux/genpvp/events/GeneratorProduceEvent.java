@@ -0,0 +1,66 @@
+package com.pallux.genpvp.events;
+
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import java.util.List;
+
+/**
+ * Called on the main thread before generator output is handed out, once per batch of generator cycles
+ * (everything produced in the same tick) instead of once per generator or item.
+ * Outputs can be changed in place, cancelling the event drops the whole batch.
+ */
+public class GeneratorProduceEvent extends Event implements Cancellable {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final List<GeneratorOutput> outputs;
+    private final boolean offline;
+    private boolean cancelled;
+
+    public GeneratorProduceEvent(List<GeneratorOutput> outputs, boolean offline) {
+        this.outputs = outputs;
+        this.offline = offline;
+    }
+
+    /**
+     * Outputs in this batch, the list itself must not be resized
+     */
+    public List<GeneratorOutput> getOutputs() {
+        return outputs;
+    }
+
+    /**
+     * True when the batch is output accrued while the generator was not running (unloaded chunk, dormant owner, throttled)
+     */
+    public boolean isOffline() {
+        return offline;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+
+    /**
+     * Checks if anything listens, so batches are only wrapped when needed
+     */
+    public static boolean hasListeners() {
+        return HANDLERS.getRegisteredListeners().length > 0;
+    }
+}
@@ -0,0 +1,81 @@
+package com.pallux.genpvp.guis;
+
+import com.pallux.genpvp.GenPvP;
+import com.pallux.genpvp.managers.CollectorManager;
+import com.pallux.genpvp.utils.ColorUtil;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+
+public class CollectorGUI extends BaseGUI {
+
+    private final Location location;
+
+    public CollectorGUI(GenPvP plugin, Player player, Location location) {
+        super(plugin, player);
+        this.location = location;
+    }
+
+    @Override
+    protected String getTitle() {
+        return plugin.getConfigManager().getMessagesConfig().getString("gui-titles.collector",
+                "<gradient:#00C9FF:#92FE9D>Chunk Collector</gradient>");
+    }
+
+    @Override
+    protected int getSize() {
+        return 27; // 3 rows
+    }
+
+    @Override
+    protected void setContents() {
+        CollectorManager.CollectorData data = plugin.getCollectorManager().getCollectorData(location);
+        if (data == null) return;
+
+        // Claim item (slot 13)
+        inventory.setItem(13, createClaimItem(data));
+
+        // Close button (slot 22)
+        inventory.setItem(22, createCloseButton());
+
+        // Fill empty slots
+        fillEmptySlots();
+    }
+
+    @Override
+    public void handleClick(Player player, int slot, ItemStack item, ClickType clickType) {
+        if (slot == 13) {
+            // The collector may have been broken while the GUI was open
+            if (!plugin.getCollectorManager().isCollector(location)) {
+                playErrorSound();
+                close();
+                return;
+            }
+
+            plugin.getCollectorManager().claim(player, location);
+
+            // Refresh GUI
+            refresh();
+        } else if (slot == 22) {
+            // Close button
+            close();
+        }
+    }
+
+    private ItemStack createClaimItem(CollectorManager.CollectorData data) {
+        String name = plugin.getConfigManager().getMessagesConfig()
+                .getString("gui.collector.claim.name", "<gradient:#2ECC71:#27AE60>Claim Output</gradient>");
+
+        List<String> loreFormat = plugin.getConfigManager().getMessagesConfig()
+                .getStringList("gui.collector.claim.lore");
+        List<String> lore = replacePlaceholders(loreFormat,
+                "{money}", ColorUtil.formatNumber(data.getMoney()),
+                "{gems}", String.valueOf(data.getGems()));
+
+        return createItem(Material.CHEST, name, lore, data.getMoney() > 0 || data.getGems() > 0);
+    }
+}
@@ -80,18 +80,21 @@ public class GeneratorUpgradeGUI extends BaseGUI {
             GeneratorManager.GeneratorTier next = plugin.getGeneratorManager().getGeneratorTier(currentTier + 1);
             if (next == null) return;
 
+            // Every generator in the stack is upgraded
+            double cost = (double) next.getUpgradeCost() * getStackCount();
+
             // Check if player has enough money
             double balance = plugin.getEconomy().getBalance(player);
-            if (balance < next.getUpgradeCost()) {
+            if (balance < cost) {
                 playErrorSound();
                 player.sendMessage(ColorUtil.colorize(plugin.getConfigManager()
                         .getMessage("generator.not-enough-money", "{amount}",
-                                ColorUtil.formatNumber(next.getUpgradeCost()))));
+                                ColorUtil.formatNumber(cost))));
                 return;
             }
 
             // Withdraw money
-            plugin.getEconomy().withdrawPlayer(player, next.getUpgradeCost());
+            plugin.getEconomy().withdrawPlayer(player, cost);
 
             // Upgrade generator
             plugin.getDataManager().updateGeneratorTier(location, currentTier + 1);
@@ -123,7 +126,8 @@ public class GeneratorUpgradeGUI extends BaseGUI {
         List<String> lore = replacePlaceholders(loreFormat,
                 "{money}", String.valueOf(tier.getMoney()),
                 "{gems}", String.valueOf(tier.getGems()),
-                "{chance}", String.valueOf(tier.getGemChance()));
+                "{chance}", String.valueOf(tier.getGemChance()),
+                "{count}", String.valueOf(getStackCount()));
 
         return createItem(tier.getBlock(), name, lore, true);
     }
@@ -139,11 +143,16 @@ public class GeneratorUpgradeGUI extends BaseGUI {
                 "{money}", String.valueOf(tier.getMoney()),
                 "{gems}", String.valueOf(tier.getGems()),
                 "{chance}", String.valueOf(tier.getGemChance()),
-                "{cost}", ColorUtil.formatNumber(tier.getUpgradeCost()));
+                "{cost}", ColorUtil.formatNumber((double) tier.getUpgradeCost() * getStackCount()),
+                "{count}", String.valueOf(getStackCount()));
 
         return createItem(tier.getBlock(), name, lore, true);
     }
 
+    private int getStackCount() {
+        return Math.max(1, plugin.getDataManager().getGeneratorCount(location));
+    }
+
     private ItemStack createMaxTierItem() {
         String name = plugin.getConfigManager().getMessagesConfig()
                 .getString("gui.upgrade.max-tier.name", "<gradient:#FF1493:#9400D3>Maximum Tier Reached!</gradient>");
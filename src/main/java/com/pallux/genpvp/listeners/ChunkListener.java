@@ -0,0 +1,54 @@
+package com.pallux.genpvp.listeners;
+
+import com.pallux.genpvp.GenPvP;
+import com.pallux.genpvp.managers.DataManager;
+import org.bukkit.Chunk;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Item;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+
+public class ChunkListener implements Listener {
+
+    private final GenPvP plugin;
+
+    public ChunkListener(GenPvP plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        // Start ticking generators in this chunk
+        Chunk chunk = event.getChunk();
+        plugin.getDataManager().markChunkLoaded(chunk);
+        plugin.getGeneratorManager().scheduleChunk(chunk.getWorld().getName(),
+                DataManager.getChunkKey(chunk.getX(), chunk.getZ()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        // Stop ticking generators in this chunk
+        Chunk chunk = event.getChunk();
+        plugin.getDataManager().markChunkUnloaded(chunk);
+        plugin.getGeneratorManager().unscheduleChunk(chunk.getWorld().getName(),
+                DataManager.getChunkKey(chunk.getX(), chunk.getZ()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        // Generator items count towards the item cap again, then nugget mode can drop what accrued
+        for (Entity entity : event.getEntities()) {
+            if (entity instanceof Item) {
+                plugin.getGeneratorManager().retrackItem((Item) entity);
+            }
+        }
+
+        Chunk chunk = event.getChunk();
+        plugin.getGeneratorManager().settleChunk(chunk.getWorld().getName(),
+                DataManager.getChunkKey(chunk.getX(), chunk.getZ()));
+    }
+}
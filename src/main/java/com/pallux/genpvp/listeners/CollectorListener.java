@@ -0,0 +1,210 @@
+package com.pallux.genpvp.listeners;
+
+import com.pallux.genpvp.GenPvP;
+import com.pallux.genpvp.guis.CollectorGUI;
+import com.pallux.genpvp.managers.CollectorManager;
+import com.pallux.genpvp.utils.ColorUtil;
+import org.bukkit.Location;
+import org.bukkit.Sound;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+import java.util.UUID;
+
+public class CollectorListener implements Listener {
+
+    private final GenPvP plugin;
+
+    public CollectorListener(GenPvP plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        Player player = event.getPlayer();
+        Block block = event.getBlock();
+        ItemStack item = event.getItemInHand();
+
+        // Check if the placed block is a collector
+        if (!plugin.getCollectorManager().isCollectorItem(item)) {
+            return;
+        }
+
+        if (!plugin.getConfigManager().isCollectorEnabled()) {
+            event.setCancelled(true);
+            player.sendMessage(plugin.getConfigManager().getMessage("collector.disabled"));
+            return;
+        }
+
+        // Check if world is allowed
+        if (!plugin.getConfigManager().isWorldAllowed(block.getWorld().getName())) {
+            event.setCancelled(true);
+            player.sendMessage(ColorUtil.colorize(plugin.getConfigManager().getMessage("generator.world-disabled")));
+            return;
+        }
+
+        // Same protection as generators
+        if (!plugin.getWorldGuardManager().canPlaceGenerator(player, block.getLocation())) {
+            event.setCancelled(true);
+            player.sendMessage(ColorUtil.colorize("{prefix} &#FF0000You cannot place generators in this protected area!")
+                    .replace("{prefix}", plugin.getConfigManager().getMessage("prefix")));
+            return;
+        }
+
+        // One collector per chunk
+        Location location = block.getLocation();
+        if (plugin.getCollectorManager().hasChunkCollector(location)) {
+            event.setCancelled(true);
+            player.sendMessage(plugin.getConfigManager().getMessage("collector.already-in-chunk"));
+            return;
+        }
+
+        plugin.getCollectorManager().addCollector(location, player.getUniqueId());
+        player.sendMessage(plugin.getConfigManager().getMessage("collector.placed"));
+
+        // Play sound
+        if (plugin.getConfigManager().isSoundsEnabled()) {
+            player.playSound(player.getLocation(), Sound.BLOCK_STONE_PLACE, 1.0f, 1.0f);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        Player player = event.getPlayer();
+        Block block = event.getBlock();
+        Location location = block.getLocation();
+
+        // Check if this block is a collector
+        if (!plugin.getCollectorManager().isCollector(location)) {
+            return;
+        }
+
+        // Same protection as generators
+        if (!plugin.getWorldGuardManager().canBreakGenerator(player, location)) {
+            event.setCancelled(true);
+            player.sendMessage(ColorUtil.colorize("{prefix} &#FF0000You cannot break generators in this protected area!")
+                    .replace("{prefix}", plugin.getConfigManager().getMessage("prefix")));
+            return;
+        }
+
+        event.setExpToDrop(0);
+        event.setDropItems(false);
+
+        // Release everything still stored, like a broken generator in vault mode
+        CollectorManager.CollectorData data = plugin.getCollectorManager().removeCollector(location);
+        if (data != null) {
+            plugin.getCollectorManager().dropContents(location, data);
+        }
+
+        block.getWorld().dropItemNaturally(location, plugin.getCollectorManager().createCollectorItem(1));
+
+        // Play sound
+        if (plugin.getConfigManager().isSoundsEnabled()) {
+            player.playSound(player.getLocation(), Sound.BLOCK_STONE_BREAK, 1.0f, 1.0f);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        protectCollectors(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        protectCollectors(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        if (movesCollector(event.getBlocks())) {
+            event.setCancelled(true);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        if (movesCollector(event.getBlocks())) {
+            event.setCancelled(true);
+        }
+    }
+
+    /**
+     * Collectors are only removed by breaking them, explosions leave them standing
+     */
+    private void protectCollectors(List<Block> blocks) {
+        blocks.removeIf(block -> plugin.getCollectorManager().isCollector(block.getLocation()));
+    }
+
+    /**
+     * Collectors are registered at their position, pistons must not move them away from it
+     */
+    private boolean movesCollector(List<Block> blocks) {
+        for (Block block : blocks) {
+            if (plugin.getCollectorManager().isCollector(block.getLocation())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onPlayerInteract(PlayerInteractEvent event) {
+        // Only handle right-click on block
+        if (!event.getAction().toString().contains("RIGHT_CLICK")) {
+            return;
+        }
+
+        // Only handle main hand
+        if (event.getHand() != EquipmentSlot.HAND) {
+            return;
+        }
+
+        Block block = event.getClickedBlock();
+        if (block == null) {
+            return;
+        }
+
+        Player player = event.getPlayer();
+        Location location = block.getLocation();
+
+        // Check if this block is a collector
+        if (!plugin.getCollectorManager().isCollector(location)) {
+            return;
+        }
+
+        // Sneaking players place blocks against the collector as usual
+        if (player.isSneaking()) {
+            return;
+        }
+
+        event.setCancelled(true);
+
+        // Check if player is the owner
+        UUID ownerUUID = plugin.getCollectorManager().getCollectorData(location).getOwner();
+        if (ownerUUID != null && !player.getUniqueId().equals(ownerUUID)) {
+            player.sendMessage(plugin.getConfigManager().getMessage("collector.not-owner"));
+            return;
+        }
+
+        new CollectorGUI(plugin, player, location).open();
+
+        // Play sound
+        if (plugin.getConfigManager().isSoundsEnabled()) {
+            player.playSound(player.getLocation(),
+                    Sound.valueOf(plugin.getConfigManager().getOpenSound()), 1.0f, 1.0f);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.pallux.genpvp.listeners;
+
+import com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent;
+import com.pallux.genpvp.GenPvP;
+import org.bukkit.entity.Item;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.ItemDespawnEvent;
+import org.bukkit.event.entity.ItemMergeEvent;
+import org.bukkit.event.inventory.InventoryPickupItemEvent;
+
+/**
+ * Keeps the per-generator item counters in sync as generator items leave the world
+ */
+public class GeneratorItemListener implements Listener {
+
+    private final GenPvP plugin;
+
+    public GeneratorItemListener(GenPvP plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityPickupItem(EntityPickupItemEvent event) {
+        // Partial pickups leave the entity in the world
+        if (event.getRemaining() > 0) {
+            return;
+        }
+        plugin.getGeneratorManager().untrackItem(event.getItem());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryPickupItem(InventoryPickupItemEvent event) {
+        // Hoppers and hopper minecarts
+        plugin.getGeneratorManager().untrackItem(event.getItem());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemDespawn(ItemDespawnEvent event) {
+        plugin.getGeneratorManager().untrackItem(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemMerge(ItemMergeEvent event) {
+        // The merged entity is removed, the target keeps its own tracking
+        plugin.getGeneratorManager().untrackItem(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityRemoveFromWorld(EntityRemoveFromWorldEvent event) {
+        // Catch-all for items destroyed any other way (lava, void, commands), items unloaded with their chunk
+        // are tracked again when it loads
+        if (event.getEntity() instanceof Item) {
+            plugin.getGeneratorManager().untrackItem((Item) event.getEntity());
+        }
+    }
+}
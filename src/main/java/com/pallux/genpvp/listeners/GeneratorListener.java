@@ -2,12 +2,14 @@ package com.pallux.genpvp.listeners;
 
 import com.pallux.genpvp.GenPvP;
 import com.pallux.genpvp.guis.GeneratorUpgradeGUI;
+import com.pallux.genpvp.managers.DataManager;
 import com.pallux.genpvp.utils.ColorUtil;
 import com.pallux.genpvp.utils.PlayerData;
 import org.bukkit.Location;
 import org.bukkit.Sound;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
@@ -39,7 +41,7 @@ public class GeneratorListener implements Listener {
         ItemStack item = event.getItemInHand();
 
         // Check if the placed block is a generator
-        if (!isGeneratorItem(item)) {
+        if (!plugin.getGeneratorManager().isGeneratorItem(item)) {
             return;
         }
 
@@ -59,7 +61,8 @@ public class GeneratorListener implements Listener {
         ItemStack item = event.getItemInHand();
 
         // Check if the placed block is a generator
-        if (!isGeneratorItem(item)) {
+        int tier = plugin.getGeneratorManager().getTierFromItem(item);
+        if (tier == 0) {
             return;
         }
 
@@ -93,15 +96,10 @@ public class GeneratorListener implements Listener {
             return;
         }
 
-        // Determine generator tier from item
-        int tier = getGeneratorTierFromItem(item);
-        if (tier == 0) {
-            return;
-        }
-
         // Add generator to data with owner - ONLY after all checks pass
         Location location = block.getLocation();
         plugin.getDataManager().addGenerator(location, tier, player.getUniqueId());
+        plugin.getGeneratorManager().scheduleGenerator(location);
         data.addGenerator();
 
         // Play sound
@@ -135,17 +133,23 @@ public class GeneratorListener implements Listener {
         // Prevent XP drops from generators
         event.setExpToDrop(0);
 
-        // Get generator tier and owner
+        // Get generator tier, stack size and owner
         int tier = plugin.getDataManager().getGeneratorTier(location);
+        int count = Math.max(1, plugin.getDataManager().getGeneratorCount(location));
         UUID ownerUUID = plugin.getDataManager().getGeneratorOwner(location);
 
+        // Release anything stored in the generator (vault mode), including what it accrued while parked
+        plugin.getGeneratorManager().dropVault(location);
+
         // Remove generator from data
         plugin.getDataManager().removeGenerator(location);
+        plugin.getGeneratorManager().unscheduleGenerator(location);
 
         // Update the OWNER's generator count, not the breaker's
         if (ownerUUID != null) {
-            PlayerData ownerData = plugin.getDataManager().getPlayerData(ownerUUID);
-            ownerData.removeGenerator();
+            // Offline owners are loaded off the main thread first
+            plugin.getDataManager().loadPlayerDataAsync(ownerUUID)
+                    .thenAccept(ownerData -> ownerData.removeGenerators(count));
 
             // Notify owner if they're online and it's not them breaking it
             if (!player.getUniqueId().equals(ownerUUID)) {
@@ -157,17 +161,23 @@ public class GeneratorListener implements Listener {
             }
         }
 
-        // Handle drop
-        if (plugin.getConfigManager().isAutoPickupOnBreak()) {
-            event.setDropItems(false);
-            ItemStack generator = plugin.getGeneratorManager().createGeneratorItem(tier, 1);
-            if (generator != null) {
-                player.getInventory().addItem(generator);
-            }
-        } else {
-            event.setDropItems(false);
+        // Handle drop, a stack gives back every generator in it
+        event.setDropItems(false);
+        int remaining = count;
+        while (remaining > 0) {
             ItemStack generator = plugin.getGeneratorManager().createGeneratorItem(tier, 1);
-            if (generator != null) {
+            if (generator == null) break;
+
+            int amount = Math.min(remaining, generator.getMaxStackSize());
+            generator.setAmount(amount);
+            remaining -= amount;
+
+            if (plugin.getConfigManager().isAutoPickupOnBreak()) {
+                // Anything that does not fit is dropped at the player
+                for (ItemStack leftover : player.getInventory().addItem(generator).values()) {
+                    player.getWorld().dropItemNaturally(player.getLocation(), leftover);
+                }
+            } else {
                 block.getWorld().dropItemNaturally(location, generator);
             }
         }
@@ -227,56 +237,93 @@ public class GeneratorListener implements Listener {
                 player.playSound(player.getLocation(),
                         Sound.valueOf(plugin.getConfigManager().getOpenSound()), 1.0f, 1.0f);
             }
+            return;
+        }
+
+        // Right-click with a generator of the same tier merges it into this block
+        ItemStack hand = player.getInventory().getItemInMainHand();
+        if (plugin.getConfigManager().isGeneratorStackingEnabled()
+                && plugin.getGeneratorManager().getTierFromItem(hand) == plugin.getDataManager().getGeneratorTier(location)) {
+            event.setCancelled(true);
+            stackGenerator(player, location, hand);
+            return;
+        }
+
+        // Plain right-click claims the stored output in vault mode
+        if (plugin.getConfigManager().isVaultModeEnabled()) {
+            // Read before cancelling, cancelling denies the interaction itself
+            boolean interactDenied = event.useInteractedBlock() == Event.Result.DENY;
+            event.setCancelled(true);
+
+            // Only the owner, or someone who could break the generator and take it all anyway
+            UUID ownerUUID = plugin.getDataManager().getGeneratorOwner(location);
+            if (ownerUUID != null && !player.getUniqueId().equals(ownerUUID)
+                    && (interactDenied || !plugin.getWorldGuardManager().canBreakGenerator(player, location))) {
+                player.sendMessage(ColorUtil.colorize(plugin.getConfigManager().getMessage("prefix") +
+                        " &#FF0000This generator belongs to someone else!"));
+                return;
+            }
+
+            plugin.getGeneratorManager().claimVault(player, location);
         }
     }
 
     /**
-     * Checks if an item is a generator item
+     * Merges one generator from the player's hand into the generator block
      */
-    private boolean isGeneratorItem(ItemStack item) {
-        if (item == null || !item.hasItemMeta()) {
-            return false;
+    private void stackGenerator(Player player, Location location, ItemStack hand) {
+        // Only the owner can add to a stack
+        UUID ownerUUID = plugin.getDataManager().getGeneratorOwner(location);
+        if (ownerUUID != null && !player.getUniqueId().equals(ownerUUID)) {
+            player.sendMessage(ColorUtil.colorize(plugin.getConfigManager().getMessage("prefix") +
+                    " &#FF0000This generator belongs to someone else!"));
+            return;
         }
 
-        if (!item.getItemMeta().hasDisplayName()) {
-            return false;
+        if (!plugin.getWorldGuardManager().canPlaceGenerator(player, location)) {
+            player.sendMessage(ColorUtil.colorize("{prefix} &#FF0000You cannot place generators in this protected area!")
+                    .replace("{prefix}", plugin.getConfigManager().getMessage("prefix")));
+            return;
         }
 
-        String displayName = item.getItemMeta().getDisplayName();
+        DataManager.GeneratorData generatorData = plugin.getDataManager().getGeneratorData(location);
+        if (generatorData == null) return;
 
-        // Check against all generator tiers
-        for (int tier = 1; tier <= plugin.getGeneratorManager().getMaxTier(); tier++) {
-            ItemStack genItem = plugin.getGeneratorManager().createGeneratorItem(tier, 1);
-            if (genItem != null && genItem.hasItemMeta() && genItem.getItemMeta().hasDisplayName()) {
-                if (displayName.equals(genItem.getItemMeta().getDisplayName())) {
-                    return true;
-                }
+        int maxStack = plugin.getConfigManager().getMaxGeneratorStack();
+        if (generatorData.getCount() >= maxStack) {
+            player.sendMessage(ColorUtil.colorize(plugin.getConfigManager()
+                    .getMessage("generator.stack-full", "{max}", String.valueOf(maxStack))));
+            if (plugin.getConfigManager().isSoundsEnabled()) {
+                player.playSound(player.getLocation(), Sound.valueOf(plugin.getConfigManager().getErrorSound()), 1.0f, 1.0f);
             }
+            return;
         }
 
-        return false;
-    }
+        // Every generator in a stack still uses a slot
+        PlayerData data = plugin.getDataManager().getPlayerData(player);
+        if (!plugin.getLevelManager().hasAvailableSlots(data)) {
+            player.sendMessage(ColorUtil.colorize(plugin.getConfigManager()
+                    .getMessage("generator.max-reached", "{max}",
+                            String.valueOf(plugin.getLevelManager().getCurrentSlots(data)))));
+            player.sendMessage(ColorUtil.colorize(plugin.getConfigManager().getMessage("generator.max-reached-hint")));
 
-    /**
-     * Gets the tier of a generator item
-     */
-    private int getGeneratorTierFromItem(ItemStack item) {
-        if (item == null || !item.hasItemMeta() || !item.getItemMeta().hasDisplayName()) {
-            return 0;
+            if (plugin.getConfigManager().isSoundsEnabled()) {
+                player.playSound(player.getLocation(), Sound.valueOf(plugin.getConfigManager().getErrorSound()), 1.0f, 1.0f);
+            }
+            return;
         }
 
-        String displayName = item.getItemMeta().getDisplayName();
+        generatorData.setCount(generatorData.getCount() + 1);
+        data.addGenerator();
+        hand.setAmount(hand.getAmount() - 1);
+
+        player.sendMessage(ColorUtil.colorize(plugin.getConfigManager().getMessage("generator.stacked",
+                "{count}", String.valueOf(generatorData.getCount()),
+                "{tier}", String.valueOf(generatorData.getTier()))));
 
-        // Check against all generator tiers
-        for (int tier = 1; tier <= plugin.getGeneratorManager().getMaxTier(); tier++) {
-            ItemStack genItem = plugin.getGeneratorManager().createGeneratorItem(tier, 1);
-            if (genItem != null && genItem.hasItemMeta() && genItem.getItemMeta().hasDisplayName()) {
-                if (displayName.equals(genItem.getItemMeta().getDisplayName())) {
-                    return tier;
-                }
-            }
+        // Play sound
+        if (plugin.getConfigManager().isSoundsEnabled()) {
+            player.playSound(player.getLocation(), Sound.BLOCK_STONE_PLACE, 1.0f, 1.0f);
         }
-
-        return 0;
     }
-}
\ No newline at end of file
+}
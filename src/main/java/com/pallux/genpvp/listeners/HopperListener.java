@@ -0,0 +1,101 @@
+package com.pallux.genpvp.listeners;
+
+import com.pallux.genpvp.GenPvP;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the generator hopper cache in sync with the world
+ */
+public class HopperListener implements Listener {
+
+    private final GenPvP plugin;
+
+    public HopperListener(GenPvP plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onHopperPlace(BlockPlaceEvent event) {
+        Block block = event.getBlock();
+        if (block.getType() != Material.HOPPER) return;
+
+        Location below = block.getRelative(BlockFace.DOWN).getLocation();
+        if (plugin.getDataManager().isGenerator(below)) {
+            plugin.getGeneratorManager().refreshHopperTarget(below);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onHopperBreak(BlockBreakEvent event) {
+        if (event.getBlock().getType() != Material.HOPPER) return;
+
+        plugin.getGeneratorManager().clearHopperTarget(event.getBlock().getRelative(BlockFace.DOWN).getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        clearDestroyedHoppers(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        clearDestroyedHoppers(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        refreshAfterMove(event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        refreshAfterMove(event.getBlocks(), event.getDirection());
+    }
+
+    private void clearDestroyedHoppers(List<Block> blocks) {
+        for (Block block : blocks) {
+            if (block.getType() == Material.HOPPER) {
+                plugin.getGeneratorManager().clearHopperTarget(block.getRelative(BlockFace.DOWN).getLocation());
+            }
+        }
+    }
+
+    /**
+     * Pistons can move blocks into or out of the spot above a generator, re-check those generators
+     * once the move has happened
+     */
+    private void refreshAfterMove(List<Block> blocks, BlockFace direction) {
+        if (blocks.isEmpty()) return;
+
+        Set<Location> affected = new HashSet<>();
+        for (Block block : blocks) {
+            affected.add(block.getRelative(BlockFace.DOWN).getLocation());
+            affected.add(block.getRelative(direction).getRelative(BlockFace.DOWN).getLocation());
+        }
+        affected.removeIf(location -> !plugin.getDataManager().isGenerator(location));
+        if (affected.isEmpty()) return;
+
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            for (Location location : affected) {
+                plugin.getGeneratorManager().refreshHopperTarget(location);
+            }
+        });
+    }
+}
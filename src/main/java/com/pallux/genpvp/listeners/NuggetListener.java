@@ -1,8 +1,8 @@
 package com.pallux.genpvp.listeners;
 
 import com.pallux.genpvp.GenPvP;
+import com.pallux.genpvp.managers.GeneratorManager;
 import com.pallux.genpvp.utils.ColorUtil;
-import com.pallux.genpvp.utils.PlayerData;
 import org.bukkit.Sound;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -40,18 +40,19 @@ public class NuggetListener implements Listener {
             return;
         }
 
+        GeneratorManager.NuggetType type = plugin.getGeneratorManager().getNuggetType(item);
+
         // Check if item is a money nugget
-        if (plugin.getGeneratorManager().isMoneyNugget(item)) {
+        if (type == GeneratorManager.NuggetType.MONEY) {
             event.setCancelled(true);
             collectAllMoneyNuggets(player);
             return;
         }
 
         // Check if item is a gem nugget
-        if (plugin.getGeneratorManager().isGemNugget(item)) {
+        if (type == GeneratorManager.NuggetType.GEM) {
             event.setCancelled(true);
             collectAllGemNuggets(player);
-            return;
         }
     }
 
@@ -59,58 +60,17 @@ public class NuggetListener implements Listener {
      * Collects all money nuggets from player's inventory
      */
     private void collectAllMoneyNuggets(Player player) {
-        double totalMoney = 0;
-        int nuggetCount = 0;
-
-        // Iterate through inventory
-        for (ItemStack item : player.getInventory().getContents()) {
-            if (item != null && plugin.getGeneratorManager().isMoneyNugget(item)) {
-                int amount = plugin.getGeneratorManager().extractMoneyAmount(item);
-                int itemCount = item.getAmount();
-
-                totalMoney += amount * itemCount;
-                nuggetCount += itemCount;
-
-                // Remove the item
-                item.setAmount(0);
-            }
-        }
+        // Single pass over the inventory, removes the nuggets it counts
+        double totalMoney = plugin.getGeneratorManager()
+                .collectNuggets(player.getInventory(), GeneratorManager.NuggetType.MONEY);
 
         if (totalMoney <= 0) {
             player.sendMessage(plugin.getConfigManager().getMessage("nugget.none-found"));
             return;
         }
 
-        // Add money to player
-        plugin.getEconomy().depositPlayer(player, totalMoney);
-
-        // Record statistic
-        plugin.getStatisticsManager().recordMoneyCollected(player, totalMoney);
-
-        // Add XP for level system
-        PlayerData data = plugin.getDataManager().getPlayerData(player);
-        int xpGained = (int) totalMoney;
-        data.addExperience(xpGained);
-
-        // Check for level up
-        while (plugin.getLevelManager().canLevelUp(data)) {
-            int oldLevel = data.getLevel();
-            plugin.getLevelManager().levelUp(data);
-            int newLevel = data.getLevel();
-            int newSlots = plugin.getLevelManager().getCurrentSlots(data);
-
-            // Send level up message
-            player.sendMessage(plugin.getConfigManager()
-                    .getMessage("level.leveled-up", "{level}", String.valueOf(newLevel)));
-            player.sendMessage(plugin.getConfigManager()
-                    .getMessage("level.new-slots", "{slots}", String.valueOf(newSlots)));
-
-            // Play level up sound
-            if (plugin.getConfigManager().isSoundsEnabled()) {
-                player.playSound(player.getLocation(),
-                        Sound.valueOf(plugin.getConfigManager().getSuccessSound()), 1.0f, 1.0f);
-            }
-        }
+        // Add money, statistics and level XP
+        plugin.getGeneratorManager().depositMoney(player, totalMoney);
 
         // Send money collected message
         player.sendMessage(plugin.getConfigManager()
@@ -126,34 +86,17 @@ public class NuggetListener implements Listener {
      * Collects all gem nuggets from player's inventory
      */
     private void collectAllGemNuggets(Player player) {
-        int totalGems = 0;
-        int nuggetCount = 0;
-
-        // Iterate through inventory
-        for (ItemStack item : player.getInventory().getContents()) {
-            if (item != null && plugin.getGeneratorManager().isGemNugget(item)) {
-                int amount = plugin.getGeneratorManager().extractGemAmount(item);
-                int itemCount = item.getAmount();
-
-                totalGems += amount * itemCount;
-                nuggetCount += itemCount;
-
-                // Remove the item
-                item.setAmount(0);
-            }
-        }
+        // Single pass over the inventory, removes the nuggets it counts
+        int totalGems = (int) Math.min(Integer.MAX_VALUE, plugin.getGeneratorManager()
+                .collectNuggets(player.getInventory(), GeneratorManager.NuggetType.GEM));
 
         if (totalGems <= 0) {
             player.sendMessage(plugin.getConfigManager().getMessage("nugget.none-found"));
             return;
         }
 
-        // Add gems to player
-        PlayerData data = plugin.getDataManager().getPlayerData(player);
-        data.addGems(totalGems);
-
-        // Record statistic
-        plugin.getStatisticsManager().recordGemsCollected(player, totalGems);
+        // Add gems and statistics
+        plugin.getGeneratorManager().depositGems(player, totalGems);
 
         // Send gems collected message
         player.sendMessage(plugin.getConfigManager()
@@ -9,6 +9,7 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.FoodLevelChangeEvent;
 import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
@@ -20,11 +21,19 @@ public class PlayerListener implements Listener {
         this.plugin = plugin;
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+
+        // Read the player's data here, off the server thread, so joining doesn't wait for storage
+        plugin.getDataManager().preloadPlayerData(event.getUniqueId());
+    }
+
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
 
-        // Load player data
+        // Load player data (already fetched at pre-login)
         PlayerData data = plugin.getDataManager().loadPlayerData(player.getUniqueId());
 
         // Update last join time
@@ -33,6 +42,12 @@ public class PlayerListener implements Listener {
         // Start session for playtime tracking
         data.startSession();
 
+        // Resume generators that went dormant while the player was away
+        plugin.getGeneratorManager().wakeOwner(player.getUniqueId());
+
+        // Resolve rank multipliers once, generator cycles only read the cached value
+        plugin.getBoosterManager().refreshPermissionMultiplier(player);
+
         // Debug message
         if (plugin.getConfigManager().isDebugEnabled()) {
             plugin.getLogger().info("Loaded data for player: " + player.getName() +
@@ -0,0 +1,381 @@
+package com.pallux.genpvp.managers;
+
+import com.pallux.genpvp.GenPvP;
+import com.pallux.genpvp.utils.ColorUtil;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.permissions.PermissionAttachmentInfo;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Production multipliers: timed boosters (e.g. x2 money for 30 minutes), personal or global,
+ * and rank multipliers from gpvp.multiplier.<value> permissions.
+ * Expiries sit in one queue ordered by end time that is checked once per tick,
+ * and every owner's combined multiplier is cached until one of its parts changes.
+ */
+public class BoosterManager {
+
+    public enum Type {
+        MONEY,
+        GEMS
+    }
+
+    private static final String PERMISSION_PREFIX = "gpvp.multiplier.";
+
+    private final GenPvP plugin;
+    // Owner -> personal boosters
+    private final Map<UUID, List<Booster>> playerBoosters;
+    // Type -> global boosters
+    private final Map<Type, List<Booster>> globalBoosters;
+    // Every active booster, soonest expiry first
+    private final PriorityQueue<Booster> expiries;
+    // Owner -> permission multiplier, only for owners with one other than 1.
+    // Memory only, resolved on join and on every recheck, offline owners keep theirs until a restart
+    private final Map<UUID, Double> permissionMultipliers;
+    // Owner -> combined permission, personal and global multipliers, only for owners with personal ones
+    private final Map<UUID, Multipliers> playerMultipliers;
+    private Multipliers globalMultipliers;
+    // Newest boosters waiting to be written, the async writer always takes the latest
+    private final AtomicReference<List<Booster>> pendingSave;
+    private BukkitTask permissionTask;
+
+    public BoosterManager(GenPvP plugin) {
+        this.plugin = plugin;
+        this.playerBoosters = new HashMap<>();
+        this.globalBoosters = new EnumMap<>(Type.class);
+        this.expiries = new PriorityQueue<>(Comparator.comparingLong(Booster::getExpiresAt));
+        this.permissionMultipliers = new HashMap<>();
+        this.playerMultipliers = new HashMap<>();
+        this.globalMultipliers = Multipliers.NONE;
+        this.pendingSave = new AtomicReference<>();
+    }
+
+    public void loadBoosters() {
+        playerBoosters.clear();
+        globalBoosters.clear();
+        expiries.clear();
+        playerMultipliers.clear();
+        globalMultipliers = Multipliers.NONE;
+
+        // Permission multipliers survive a reload, they only come from online players' permissions
+        for (UUID owner : permissionMultipliers.keySet()) {
+            refreshPlayer(owner);
+        }
+
+        long now = System.currentTimeMillis();
+        for (Booster booster : plugin.getStorage().loadBoosters()) {
+            // Ran out while the server was down
+            if (booster.getExpiresAt() <= now) continue;
+
+            addBooster(booster);
+        }
+
+        plugin.getLogger().info("Loaded " + expiries.size() + " boosters!");
+    }
+
+    public void saveBoosters() {
+        pendingSave.set(null);
+        writeBoosters(new ArrayList<>(expiries));
+    }
+
+    /**
+     * Writes the boosters off the main thread after they changed, so a crash does not bring back ended ones
+     * or lose new ones
+     */
+    private void queueSave() {
+        // A writer is already queued and will pick up this newer state
+        if (pendingSave.getAndSet(new ArrayList<>(expiries)) != null) return;
+
+        plugin.runAsync(() -> {
+            List<Booster> boosters = pendingSave.getAndSet(null);
+            if (boosters != null) {
+                writeBoosters(boosters);
+            }
+        });
+    }
+
+    private synchronized void writeBoosters(List<Booster> boosters) {
+        plugin.getStorage().saveBoosters(boosters);
+    }
+
+    /**
+     * Starts a booster for a player, or for everyone when owner is null
+     */
+    public Booster startBooster(UUID owner, Type type, double multiplier, long durationMillis) {
+        Booster booster = new Booster(owner, type, multiplier, System.currentTimeMillis() + durationMillis);
+        addBooster(booster);
+        queueSave();
+        return booster;
+    }
+
+    private void addBooster(Booster booster) {
+        if (booster.getOwner() == null) {
+            globalBoosters.computeIfAbsent(booster.getType(), k -> new ArrayList<>()).add(booster);
+            refreshGlobal();
+        } else {
+            playerBoosters.computeIfAbsent(booster.getOwner(), k -> new ArrayList<>()).add(booster);
+            refreshPlayer(booster.getOwner());
+        }
+        expiries.add(booster);
+    }
+
+    /**
+     * Ends every personal booster of a player, or every global booster when owner is null.
+     * Returns how many were ended.
+     */
+    public int clearBoosters(UUID owner) {
+        List<Booster> removed = new ArrayList<>();
+
+        if (owner == null) {
+            for (List<Booster> boosters : globalBoosters.values()) {
+                removed.addAll(boosters);
+            }
+            globalBoosters.clear();
+            refreshGlobal();
+        } else {
+            List<Booster> boosters = playerBoosters.remove(owner);
+            if (boosters != null) {
+                removed.addAll(boosters);
+            }
+            refreshPlayer(owner);
+        }
+
+        expiries.removeAll(removed);
+        if (!removed.isEmpty()) {
+            queueSave();
+        }
+        return removed.size();
+    }
+
+    /**
+     * Ends every booster whose time is up, called once per tick by the generator task
+     */
+    public void expireBoosters() {
+        if (expiries.isEmpty()) return;
+
+        long now = System.currentTimeMillis();
+        if (expiries.peek().getExpiresAt() > now) return;
+
+        while (!expiries.isEmpty() && expiries.peek().getExpiresAt() <= now) {
+            Booster booster = expiries.poll();
+            String type = formatType(booster.getType());
+            String multiplier = formatMultiplier(booster.getMultiplier());
+
+            if (booster.getOwner() == null) {
+                List<Booster> boosters = globalBoosters.get(booster.getType());
+                if (boosters != null) {
+                    boosters.remove(booster);
+                    if (boosters.isEmpty()) {
+                        globalBoosters.remove(booster.getType());
+                    }
+                }
+                refreshGlobal();
+
+                ColorUtil.broadcast(plugin.getConfigManager()
+                        .getMessage("booster.global-expired", "{type}", type, "{multiplier}", multiplier));
+            } else {
+                List<Booster> boosters = playerBoosters.get(booster.getOwner());
+                if (boosters != null) {
+                    boosters.remove(booster);
+                    if (boosters.isEmpty()) {
+                        playerBoosters.remove(booster.getOwner());
+                    }
+                }
+                refreshPlayer(booster.getOwner());
+
+                Player player = Bukkit.getPlayer(booster.getOwner());
+                if (player != null) {
+                    player.sendMessage(plugin.getConfigManager()
+                            .getMessage("booster.expired", "{type}", type, "{multiplier}", multiplier));
+                }
+            }
+        }
+
+        queueSave();
+    }
+
+    /**
+     * Starts rechecking the permission multipliers of online players
+     */
+    public void startPermissionTask() {
+        stopPermissionTask();
+        refreshPermissionMultipliers();
+
+        int interval = Math.max(1, plugin.getConfigManager().getPermissionMultiplierRecheckInterval()) * 20;
+        permissionTask = Bukkit.getScheduler().runTaskTimer(plugin, this::refreshPermissionMultipliers, interval, interval);
+    }
+
+    public void stopPermissionTask() {
+        if (permissionTask != null) {
+            permissionTask.cancel();
+            permissionTask = null;
+        }
+    }
+
+    /**
+     * Resolves the permission multiplier of every online player
+     */
+    public void refreshPermissionMultipliers() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            refreshPermissionMultiplier(player);
+        }
+    }
+
+    /**
+     * Resolves a player's permission multiplier and updates the cache if it changed.
+     * This is the only place permissions are checked, generator cycles just read the cache.
+     */
+    public void refreshPermissionMultiplier(Player player) {
+        double multiplier = resolvePermissionMultiplier(player);
+        UUID owner = player.getUniqueId();
+
+        Double previous = permissionMultipliers.get(owner);
+        if ((previous != null ? previous : 1.0) == multiplier) return;
+
+        if (multiplier == 1.0) {
+            permissionMultipliers.remove(owner);
+        } else {
+            permissionMultipliers.put(owner, multiplier);
+        }
+        refreshPlayer(owner);
+    }
+
+    /**
+     * Highest gpvp.multiplier.<value> node a player has, 1 if none
+     */
+    private double resolvePermissionMultiplier(Player player) {
+        if (!plugin.getConfigManager().isPermissionMultipliersEnabled()) return 1.0;
+
+        double multiplier = 1.0;
+        for (PermissionAttachmentInfo info : player.getEffectivePermissions()) {
+            if (!info.getValue()) continue;
+
+            String permission = info.getPermission();
+            if (!permission.startsWith(PERMISSION_PREFIX)) continue;
+
+            try {
+                multiplier = Math.max(multiplier, Double.parseDouble(permission.substring(PERMISSION_PREFIX.length())));
+            } catch (NumberFormatException ignored) {
+                // Not a multiplier node
+            }
+        }
+
+        return Math.min(multiplier, plugin.getConfigManager().getMaxPermissionMultiplier());
+    }
+
+    /**
+     * Gets the combined multipliers for an owner's generators (permission times personal times global).
+     * Cached, so this is a single map lookup on the generator hot path.
+     */
+    public Multipliers getMultipliers(UUID owner) {
+        if (owner == null) return globalMultipliers;
+
+        Multipliers multipliers = playerMultipliers.get(owner);
+        return multipliers != null ? multipliers : globalMultipliers;
+    }
+
+    /**
+     * Gets the active personal boosters of a player
+     */
+    public List<Booster> getBoosters(UUID owner) {
+        List<Booster> boosters = playerBoosters.get(owner);
+        return boosters != null ? Collections.unmodifiableList(boosters) : Collections.emptyList();
+    }
+
+    private void refreshGlobal() {
+        globalMultipliers = combine(Multipliers.NONE, globalBoosters.values());
+
+        // Every cached owner includes the global part
+        for (UUID owner : new ArrayList<>(playerMultipliers.keySet())) {
+            refreshPlayer(owner);
+        }
+    }
+
+    private void refreshPlayer(UUID owner) {
+        List<Booster> boosters = playerBoosters.get(owner);
+        Double permission = permissionMultipliers.get(owner);
+        if ((boosters == null || boosters.isEmpty()) && permission == null) {
+            playerMultipliers.remove(owner);
+            return;
+        }
+
+        Multipliers base = globalMultipliers;
+        if (permission != null) {
+            base = new Multipliers(base.getMoney() * permission, base.getGems() * permission);
+        }
+
+        playerMultipliers.put(owner, boosters != null ? combine(base, Collections.singletonList(boosters)) : base);
+    }
+
+    private static Multipliers combine(Multipliers base, Collection<List<Booster>> boosterLists) {
+        double money = base.getMoney();
+        double gems = base.getGems();
+
+        // Boosters of the same type stack multiplicatively
+        for (List<Booster> boosters : boosterLists) {
+            for (Booster booster : boosters) {
+                if (booster.getType() == Type.MONEY) {
+                    money *= booster.getMultiplier();
+                } else {
+                    gems *= booster.getMultiplier();
+                }
+            }
+        }
+
+        return new Multipliers(money, gems);
+    }
+
+    public String formatType(Type type) {
+        return plugin.getConfigManager().getMessagesConfig()
+                .getString("booster.types." + type.name().toLowerCase(), type.name().toLowerCase());
+    }
+
+    public static String formatMultiplier(double multiplier) {
+        return multiplier == Math.floor(multiplier)
+                ? String.valueOf((long) multiplier)
+                : String.valueOf(multiplier);
+    }
+
+    public static class Booster {
+        private final UUID owner;
+        private final Type type;
+        private final double multiplier;
+        private final long expiresAt;
+
+        public Booster(UUID owner, Type type, double multiplier, long expiresAt) {
+            this.owner = owner;
+            this.type = type;
+            this.multiplier = multiplier;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Owner of a personal booster, null for global boosters
+         */
+        public UUID getOwner() { return owner; }
+        public Type getType() { return type; }
+        public double getMultiplier() { return multiplier; }
+        public long getExpiresAt() { return expiresAt; }
+    }
+
+    /**
+     * Combined money and gem multipliers, immutable so the planner thread can read a snapshot
+     */
+    public static class Multipliers {
+        public static final Multipliers NONE = new Multipliers(1.0, 1.0);
+
+        private final double money;
+        private final double gems;
+
+        public Multipliers(double money, double gems) {
+            this.money = money;
+            this.gems = gems;
+        }
+
+        public double getMoney() { return money; }
+        public double getGems() { return gems; }
+    }
+}
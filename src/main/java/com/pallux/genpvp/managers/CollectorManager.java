@@ -0,0 +1,355 @@
+package com.pallux.genpvp.managers;
+
+import com.pallux.genpvp.GenPvP;
+import com.pallux.genpvp.storage.StorageBackend;
+import com.pallux.genpvp.utils.ColorUtil;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Sound;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemFlag;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.*;
+
+/**
+ * Chunk collectors: one block per chunk that takes the output of every generator in that chunk
+ * into plain counters, so no nugget items or hopper transfers are involved
+ */
+public class CollectorManager {
+
+    private final GenPvP plugin;
+    private final Map<Location, CollectorData> collectors;
+    // World name -> chunk key -> collector in that chunk
+    private final Map<String, Map<Long, CollectorData>> chunkCollectors;
+    private final NamespacedKey collectorKey;
+    // Collectors removed since the last save, deleted from storage on the next one
+    private final Set<Location> removedCollectors;
+
+    public CollectorManager(GenPvP plugin) {
+        this.plugin = plugin;
+        this.collectors = new HashMap<>();
+        this.chunkCollectors = new HashMap<>();
+        this.collectorKey = new NamespacedKey(plugin, "collector");
+        this.removedCollectors = new HashSet<>();
+    }
+
+    public void loadCollectors() {
+        collectors.clear();
+        chunkCollectors.clear();
+        removedCollectors.clear();
+
+        for (CollectorData data : plugin.getStorage().loadCollectors().values()) {
+            data.markSaved(data.getChanges());
+            register(data);
+        }
+
+        plugin.getLogger().info("Loaded " + collectors.size() + " collectors!");
+    }
+
+    /**
+     * Saves the collectors that changed since the last save
+     */
+    public void saveCollectors() {
+        prepareCollectorSave().run();
+    }
+
+    /**
+     * Copies the collectors that changed since the last save, must run on the main thread.
+     * The returned task writes the copies from any thread.
+     */
+    public Runnable prepareCollectorSave() {
+        List<Location> removed = new ArrayList<>(removedCollectors);
+        removedCollectors.clear();
+
+        // Backends that rewrite the whole file still need every collector
+        StorageBackend storage = plugin.getStorage();
+        boolean partial = storage.supportsPartialSaves();
+
+        Map<Location, CollectorData> copies = new HashMap<>();
+        Map<CollectorData, Long> changed = new HashMap<>();
+        for (Map.Entry<Location, CollectorData> entry : collectors.entrySet()) {
+            CollectorData data = entry.getValue();
+            if (data.isDirty()) {
+                changed.put(data, data.getChanges());
+            } else if (partial) {
+                continue;
+            }
+            copies.put(entry.getKey(), data.copy());
+        }
+
+        if (changed.isEmpty() && removed.isEmpty()) return () -> {};
+
+        return () -> {
+            if (storage.saveCollectors(copies, removed)) {
+                changed.forEach(CollectorData::markSaved);
+            } else {
+                // Try them again on the next save, changed collectors are still dirty
+                plugin.runOnMainThread(() -> requeueRemoved(removed));
+            }
+        };
+    }
+
+    private void requeueRemoved(Collection<Location> removed) {
+        for (Location location : removed) {
+            if (!collectors.containsKey(location)) {
+                removedCollectors.add(location);
+            }
+        }
+    }
+
+    /**
+     * Registers a collector, the chunk must not have one yet
+     */
+    public CollectorData addCollector(Location location, UUID owner) {
+        CollectorData data = new CollectorData(location, owner);
+        register(data);
+        return data;
+    }
+
+    private void register(CollectorData data) {
+        Location location = data.getLocation();
+        collectors.put(location, data);
+        chunkCollectors.computeIfAbsent(location.getWorld().getName(), k -> new HashMap<>())
+                .put(getChunkKey(location), data);
+        removedCollectors.remove(location);
+    }
+
+    public CollectorData removeCollector(Location location) {
+        CollectorData data = collectors.remove(location);
+        if (data != null) {
+            removedCollectors.add(location);
+            Map<Long, CollectorData> chunks = chunkCollectors.get(location.getWorld().getName());
+            if (chunks != null) {
+                chunks.remove(getChunkKey(location));
+            }
+        }
+        return data;
+    }
+
+    public boolean isCollector(Location location) {
+        return collectors.containsKey(location);
+    }
+
+    public CollectorData getCollectorData(Location location) {
+        return collectors.get(location);
+    }
+
+    /**
+     * Gets the collector in the chunk of a location that takes the output of an owner's generators,
+     * null if the chunk has none or it belongs to someone else (ownerless collectors take everyone's)
+     */
+    public CollectorData getChunkCollector(Location location, UUID owner) {
+        if (!plugin.getConfigManager().isCollectorEnabled()) return null;
+
+        Map<Long, CollectorData> chunks = chunkCollectors.get(location.getWorld().getName());
+        CollectorData data = chunks != null ? chunks.get(getChunkKey(location)) : null;
+        if (data == null) return null;
+        if (data.getOwner() != null && !data.getOwner().equals(owner)) return null;
+
+        // Cheap type read guards against collectors removed without an event (e.g. world edits),
+        // only while the chunk is loaded, parked generators must not load it
+        Location collectorLocation = data.getLocation();
+        World world = collectorLocation.getWorld();
+        if (world.isChunkLoaded(collectorLocation.getBlockX() >> 4, collectorLocation.getBlockZ() >> 4)
+                && world.getType(collectorLocation) != getCollectorBlock()) {
+            removeCollector(collectorLocation);
+            dropContents(collectorLocation, data);
+            return null;
+        }
+
+        return data;
+    }
+
+    /**
+     * Drops what a collector stored as nuggets where it stood
+     */
+    public void dropContents(Location location, CollectorData data) {
+        if (data.getMoney() > 0) {
+            location.getWorld().dropItemNaturally(location, plugin.getGeneratorManager().createMoneyNugget(data.getMoney()));
+        }
+        if (data.getGems() > 0) {
+            location.getWorld().dropItemNaturally(location, plugin.getGeneratorManager().createGemNugget(data.getGems()));
+        }
+        data.clear();
+    }
+
+    /**
+     * Checks if the chunk of a location already has a collector
+     */
+    public boolean hasChunkCollector(Location location) {
+        Map<Long, CollectorData> chunks = chunkCollectors.get(location.getWorld().getName());
+        return chunks != null && chunks.containsKey(getChunkKey(location));
+    }
+
+    private static long getChunkKey(Location location) {
+        return DataManager.getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+    }
+
+    /**
+     * Pays everything stored in a collector to a player
+     */
+    public void claim(Player player, Location location) {
+        CollectorData data = collectors.get(location);
+        if (data == null) return;
+
+        if (data.getMoney() <= 0 && data.getGems() <= 0) {
+            player.sendMessage(plugin.getConfigManager().getMessage("collector.empty"));
+            return;
+        }
+
+        // Gem balances are ints, anything above that stays stored for the next claim
+        long money = data.getMoney();
+        long gems = Math.min(Integer.MAX_VALUE, data.getGems());
+        data.take(money, gems);
+
+        if (money > 0) {
+            plugin.getGeneratorManager().depositMoney(player, money);
+            player.sendMessage(plugin.getConfigManager()
+                    .getMessage("nugget.money-collected", "{amount}", ColorUtil.formatNumber(money)));
+        }
+
+        if (gems > 0) {
+            plugin.getGeneratorManager().depositGems(player, (int) gems);
+            player.sendMessage(plugin.getConfigManager()
+                    .getMessage("nugget.gems-collected", "{amount}", String.valueOf(gems)));
+        }
+
+        if (plugin.getConfigManager().isSoundsEnabled()) {
+            player.playSound(player.getLocation(), Sound.ENTITY_EXPERIENCE_ORB_PICKUP, 1.0f, 1.0f);
+        }
+    }
+
+    /**
+     * Block type collectors are placed as
+     */
+    public Material getCollectorBlock() {
+        String block = plugin.getConfigManager().getGeneratorsConfig().getString("collector.block", "LODESTONE");
+        Material material = Material.matchMaterial(block);
+        return material != null && material.isBlock() ? material : Material.LODESTONE;
+    }
+
+    public ItemStack createCollectorItem(int amount) {
+        ItemStack item = new ItemStack(getCollectorBlock(), amount);
+        ItemMeta meta = item.getItemMeta();
+
+        if (meta != null) {
+            FileConfiguration config = plugin.getConfigManager().getGeneratorsConfig();
+            meta.setDisplayName(ColorUtil.colorize(config.getString("collector.item-name",
+                    "<gradient:#00C9FF:#92FE9D>Chunk Collector</gradient>")));
+
+            List<String> lore = new ArrayList<>();
+            for (String line : config.getStringList("collector.lore")) {
+                lore.add(ColorUtil.colorize(line));
+            }
+            meta.setLore(lore);
+
+            // Add glow effect
+            meta.addEnchant(Enchantment.DURABILITY, 1, true);
+            meta.addItemFlags(ItemFlag.HIDE_ENCHANTS);
+
+            // Add persistent data to identify collectors
+            meta.getPersistentDataContainer().set(collectorKey, PersistentDataType.BYTE, (byte) 1);
+
+            item.setItemMeta(meta);
+        }
+
+        return item;
+    }
+
+    public boolean isCollectorItem(ItemStack item) {
+        if (item == null || !item.hasItemMeta()) return false;
+
+        ItemMeta meta = item.getItemMeta();
+        if (meta == null) return false;
+
+        return meta.getPersistentDataContainer().has(collectorKey, PersistentDataType.BYTE);
+    }
+
+    public static class CollectorData {
+        private final Location location;
+        private final UUID owner;
+        private long money;
+        private long gems;
+        // Bumped on every change (main thread), savedChanges is what the last successful save wrote,
+        // new collectors start dirty
+        private volatile long changes;
+        private volatile long savedChanges;
+
+        public CollectorData(Location location, UUID owner) {
+            this.location = location;
+            this.owner = owner;
+            this.changes = 1;
+        }
+
+        /**
+         * Copy of the stored values for a save off the main thread
+         */
+        public CollectorData copy() {
+            CollectorData copy = new CollectorData(location, owner);
+            copy.money = money;
+            copy.gems = gems;
+            return copy;
+        }
+
+        public Location getLocation() {
+            return location;
+        }
+
+        public UUID getOwner() {
+            return owner;
+        }
+
+        public long getMoney() {
+            return money;
+        }
+
+        public long getGems() {
+            return gems;
+        }
+
+        public void add(long money, long gems) {
+            this.money += money;
+            this.gems += gems;
+            this.changes++;
+        }
+
+        /**
+         * Removes paid out amounts, whatever was not paid stays stored
+         */
+        public void take(long money, long gems) {
+            this.money -= money;
+            this.gems -= gems;
+            this.changes++;
+        }
+
+        public void clear() {
+            this.money = 0;
+            this.gems = 0;
+            this.changes++;
+        }
+
+        public boolean isDirty() {
+            return changes != savedChanges;
+        }
+
+        public long getChanges() {
+            return changes;
+        }
+
+        /**
+         * Marks the changes up to the given count as saved, later changes stay dirty
+         */
+        public synchronized void markSaved(long changes) {
+            if (changes > savedChanges) {
+                this.savedChanges = changes;
+            }
+        }
+    }
+}
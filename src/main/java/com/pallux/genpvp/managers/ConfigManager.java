@@ -227,6 +227,42 @@ public class ConfigManager {
         return getMainConfig().getInt("settings.generator-interval", 10);
     }
 
+    public boolean isAsyncGeneratorPlanning() {
+        return getMainConfig().getBoolean("settings.async-generator-planning", false);
+    }
+
+    public boolean isOfflineGenerationEnabled() {
+        return getMainConfig().getBoolean("settings.offline-generation", true);
+    }
+
+    public boolean isOwnerDormancyEnabled() {
+        return getMainConfig().getBoolean("settings.owner-dormancy.enabled", true);
+    }
+
+    public long getOwnerDormancyMillis() {
+        return getMainConfig().getLong("settings.owner-dormancy.offline-hours", 72) * 60 * 60 * 1000;
+    }
+
+    public boolean isOwnerDormancyPaused() {
+        return getMainConfig().getString("settings.owner-dormancy.mode", "ACCRUE").equalsIgnoreCase("PAUSE");
+    }
+
+    public boolean isPermissionMultipliersEnabled() {
+        return getMainConfig().getBoolean("settings.permission-multipliers.enabled", true);
+    }
+
+    public int getPermissionMultiplierRecheckInterval() {
+        return getMainConfig().getInt("settings.permission-multipliers.recheck-interval", 60);
+    }
+
+    public double getMaxPermissionMultiplier() {
+        return getMainConfig().getDouble("settings.permission-multipliers.max", 10.0);
+    }
+
+    public long getGemSeed() {
+        return getMainConfig().getLong("settings.gem-seed", 0);
+    }
+
     public int getMaxItemsPerGenerator() {
         return getMainConfig().getInt("settings.max-items-per-generator", 64);
     }
@@ -369,6 +405,14 @@ public class ConfigManager {
         return getGeneratorsConfig().getInt("particles.gems.count", 10);
     }
 
+    public double getParticleViewDistance() {
+        return getGeneratorsConfig().getDouble("particles.view-distance", 32);
+    }
+
+    public int getParticlePacketBudget() {
+        return getGeneratorsConfig().getInt("particles.max-packets-per-tick", 200);
+    }
+
     // Hopper settings
     public boolean isHopperCollectionEnabled() {
         return getGeneratorsConfig().getBoolean("hopper-collection.enabled", true);
@@ -378,6 +422,54 @@ public class ConfigManager {
         return getGeneratorsConfig().getBoolean("hopper-collection.collect-from-stacks", true);
     }
 
+    // Vault mode settings
+    public boolean isVaultModeEnabled() {
+        return getGeneratorsConfig().getBoolean("vault-mode.enabled", false);
+    }
+
+    // Throttling settings
+    public boolean isThrottlingEnabled() {
+        return getGeneratorsConfig().getBoolean("throttling.enabled", true);
+    }
+
+    public int getThrottleCheckInterval() {
+        return getGeneratorsConfig().getInt("throttling.check-interval", 100);
+    }
+
+    public double getThrottleParticlesMspt() {
+        return getGeneratorsConfig().getDouble("throttling.disable-particles-mspt", 40);
+    }
+
+    public double getThrottleStretchMspt() {
+        return getGeneratorsConfig().getDouble("throttling.stretch-interval-mspt", 45);
+    }
+
+    public int getThrottleStretchFactor() {
+        return getGeneratorsConfig().getInt("throttling.stretch-factor", 2);
+    }
+
+    public double getThrottleAccrueMspt() {
+        return getGeneratorsConfig().getDouble("throttling.accrue-mspt", 50);
+    }
+
+    public double getThrottleRecoveryMargin() {
+        return getGeneratorsConfig().getDouble("throttling.recovery-margin", 5);
+    }
+
+    // Collector settings
+    public boolean isCollectorEnabled() {
+        return getGeneratorsConfig().getBoolean("collector.enabled", true);
+    }
+
+    // Generator stacking settings
+    public boolean isGeneratorStackingEnabled() {
+        return getGeneratorsConfig().getBoolean("stacking.enabled", true);
+    }
+
+    public int getMaxGeneratorStack() {
+        return getGeneratorsConfig().getInt("stacking.max-stack", 64);
+    }
+
     // Storage settings
     public String getStorageType() {
         return getMainConfig().getString("storage.type", "YAML");
@@ -387,6 +479,62 @@ public class ConfigManager {
         return getMainConfig().getInt("storage.auto-save-interval", 5);
     }
 
+    public int getPlayerCacheSize() {
+        return Math.max(0, getMainConfig().getInt("storage.player-cache-size", 500));
+    }
+
+    public int getLeaderboardRefreshInterval() {
+        return Math.max(1, getMainConfig().getInt("storage.leaderboard-refresh-interval", 15));
+    }
+
+    public String getSqliteFile() {
+        return getMainConfig().getString("storage.sqlite.file", "genpvp.db");
+    }
+
+    public String getMySqlHost() {
+        return getMainConfig().getString("storage.mysql.host", "localhost");
+    }
+
+    public int getMySqlPort() {
+        return getMainConfig().getInt("storage.mysql.port", 3306);
+    }
+
+    public String getMySqlDatabase() {
+        return getMainConfig().getString("storage.mysql.database", "genpvp");
+    }
+
+    public String getMySqlUsername() {
+        return getMainConfig().getString("storage.mysql.username", "root");
+    }
+
+    public String getMySqlPassword() {
+        return getMainConfig().getString("storage.mysql.password", "");
+    }
+
+    public boolean isMySqlUseSsl() {
+        return getMainConfig().getBoolean("storage.mysql.use-ssl", false);
+    }
+
+    public int getMySqlPoolSize() {
+        return getMainConfig().getInt("storage.mysql.pool-size", 4);
+    }
+
+    public String getMySqlJdbcUrl() {
+        return getMainConfig().getString("storage.mysql.jdbc-url", "");
+    }
+
+    /**
+     * Server id used in the generator and defense table names, empty if this server uses the shared tables
+     */
+    public String getMySqlServerId() {
+        String serverId = getMainConfig().getString("storage.mysql.server-id", "").toLowerCase();
+        if (!serverId.matches("[a-z0-9_]*")) {
+            plugin.getLogger().warning("storage.mysql.server-id may only contain letters, numbers and _, ignoring it!");
+            return "";
+        }
+        return serverId;
+    }
+
     // Placeholder settings
     public boolean isCompactNumbers() {
         return getMainConfig().getBoolean("placeholders.compact-numbers", true);
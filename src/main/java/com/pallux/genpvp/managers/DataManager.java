@@ -1,190 +1,313 @@
 package com.pallux.genpvp.managers;
 
 import com.pallux.genpvp.GenPvP;
+import com.pallux.genpvp.storage.StorageBackend;
 import com.pallux.genpvp.utils.PlayerData;
 import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
 import org.bukkit.Location;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitTask;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.IntSupplier;
 
 public class DataManager {
 
     private final GenPvP plugin;
+    // Online players
     private final Map<UUID, PlayerData> playerDataMap;
+    // Offline players that were looked up or are about to join, least recently used first (guarded by itself)
+    private final LinkedHashMap<UUID, PlayerData> offlineCache;
     private final Map<Location, GeneratorData> generatorLocations;
-    private File dataFolder;
-    private File playersFolder;
-    private File generatorsFile;
+    // World name -> chunk key -> generators in that chunk
+    private final Map<String, Map<Long, Set<Location>>> generatorChunks;
+    // Subset of generatorChunks for chunks that are currently loaded
+    private final Map<String, Map<Long, Set<Location>>> loadedGeneratorChunks;
+    // Generator -> topmost generator of its vertical stack
+    private final Map<Location, Location> stackTops;
+    // Owner -> generators placed by that owner
+    private final Map<UUID, Set<Location>> ownerGenerators;
+    // Generators removed since the last save, deleted from storage on the next save
+    private final Set<Location> removedGenerators;
+    // Writes player data of players dropped from memory, off the server thread
+    private final ExecutorService saveExecutor;
+    // Last queued save per player (quit or cache eviction), loading the player waits for it
+    private final Map<UUID, CompletableFuture<Void>> pendingSaves;
+    // Offline players being read from storage for a lookup
+    private final Map<UUID, CompletableFuture<PlayerData>> pendingLoads;
+    // Player saves run one at a time so the auto-save and quit saves see each other's row versions
+    private final Object playerSaveLock;
     private BukkitTask autoSaveTask;
 
     public DataManager(GenPvP plugin) {
         this.plugin = plugin;
-        this.playerDataMap = new HashMap<>();
-        this.generatorLocations = new HashMap<>();
-
-        setupFolders();
-    }
-
-    private void setupFolders() {
-        dataFolder = new File(plugin.getDataFolder(), "data");
-        if (!dataFolder.exists()) {
-            dataFolder.mkdirs();
-        }
-
-        playersFolder = new File(dataFolder, "players");
-        if (!playersFolder.exists()) {
-            playersFolder.mkdirs();
-        }
-
-        generatorsFile = new File(dataFolder, "generators.yml");
-        if (!generatorsFile.exists()) {
-            try {
-                generatorsFile.createNewFile();
-            } catch (IOException e) {
-                plugin.getLogger().severe("Could not create generators.yml!");
-                e.printStackTrace();
+        this.playerDataMap = new ConcurrentHashMap<>();
+        int cacheSize = plugin.getConfigManager().getPlayerCacheSize();
+        this.offlineCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, PlayerData> eldest) {
+                if (size() <= cacheSize) return false;
+
+                queueSave(eldest.getValue());
+                return true;
             }
-        }
+        };
+        this.generatorLocations = new HashMap<>();
+        this.generatorChunks = new HashMap<>();
+        this.loadedGeneratorChunks = new HashMap<>();
+        this.stackTops = new HashMap<>();
+        this.ownerGenerators = new HashMap<>();
+        this.removedGenerators = new HashSet<>();
+        this.saveExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "GenPvP Player Saves");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pendingSaves = new ConcurrentHashMap<>();
+        this.pendingLoads = new ConcurrentHashMap<>();
+        this.playerSaveLock = new Object();
     }
 
     /**
-     * Loads all player data and generator locations
+     * Loads generator locations and players already online (enabled after a reload),
+     * other player data is loaded when a player logs in or is looked up
      */
     public void loadAllData() {
-        loadAllPlayerData();
         loadGeneratorLocations();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            loadPlayerData(player.getUniqueId());
+        }
         plugin.getLogger().info("All data loaded!");
     }
 
     /**
-     * Loads all player data from files
+     * Fetches a player's data before they join (called from AsyncPlayerPreLoginEvent, off the server thread)
      */
-    private void loadAllPlayerData() {
-        File[] files = playersFolder.listFiles((dir, name) -> name.endsWith(".yml"));
-        if (files == null) return;
-
-        int loaded = 0;
-        for (File file : files) {
-            String uuidString = file.getName().replace(".yml", "");
-            try {
-                UUID uuid = UUID.fromString(uuidString);
-                loadPlayerData(uuid);
-                loaded++;
-            } catch (IllegalArgumentException e) {
-                plugin.getLogger().warning("Invalid UUID in file: " + file.getName());
-            }
+    public void preloadPlayerData(UUID uuid) {
+        if (playerDataMap.containsKey(uuid)) return;
+        synchronized (offlineCache) {
+            if (offlineCache.containsKey(uuid)) return;
         }
 
-        plugin.getLogger().info("Loaded " + loaded + " player data files!");
+        PlayerData data = loadFromStorage(uuid);
+        synchronized (offlineCache) {
+            offlineCache.putIfAbsent(uuid, data);
+        }
     }
 
     /**
-     * Loads player data for a specific player
+     * Loads player data for a player that is joining
      */
     public PlayerData loadPlayerData(UUID uuid) {
-        if (playerDataMap.containsKey(uuid)) {
-            return playerDataMap.get(uuid);
+        PlayerData data = playerDataMap.get(uuid);
+        if (data != null) {
+            return data;
         }
 
-        File playerFile = new File(playersFolder, uuid.toString() + ".yml");
-        PlayerData data;
+        // Fetched at pre-login, or looked up while the player was offline
+        synchronized (offlineCache) {
+            data = offlineCache.remove(uuid);
+        }
+        if (data == null) {
+            data = loadFromStorage(uuid);
+        }
 
-        if (playerFile.exists()) {
-            FileConfiguration config = YamlConfiguration.loadConfiguration(playerFile);
-            data = new PlayerData(uuid);
+        playerDataMap.put(uuid, data);
+        return data;
+    }
 
-            data.setLevel(config.getInt("level", plugin.getConfigManager().getStartingLevel()));
-            data.setExperience(config.getInt("experience", 0));
-            data.setGems(config.getInt("gems", 0));
-            data.setGeneratorsPlaced(config.getInt("generators-placed", 0));
-
-            // Load statistics
-            data.setKills(config.getInt("stats.kills", 0));
-            data.setDeaths(config.getInt("stats.deaths", 0));
-            data.setBlocksPlaced(config.getInt("stats.blocks-placed", 0));
-            data.setBlocksBroken(config.getInt("stats.blocks-broken", 0));
-            data.setMoneyCollected(config.getDouble("stats.money-collected", 0));
-            data.setGemsCollected(config.getInt("stats.gems-collected", 0));
-            data.setPlaytime(config.getLong("stats.playtime", 0));
-            data.setFirstJoin(config.getLong("first-join", System.currentTimeMillis()));
-            data.setLastJoin(config.getLong("last-join", System.currentTimeMillis()));
+    /**
+     * Reads a player from storage, with defaults if the player is new
+     */
+    private PlayerData loadFromStorage(UUID uuid) {
+        // A quit save for this player may still be running, don't read the row before it
+        CompletableFuture<Void> pending = pendingSaves.get(uuid);
+        if (pending != null) {
+            pending.join();
+        }
 
-        } else {
+        PlayerData data = plugin.getStorage().loadPlayer(uuid);
+
+        if (data == null) {
             data = new PlayerData(uuid);
             data.setLevel(plugin.getConfigManager().getStartingLevel());
             data.setExperience(0);
             data.setFirstJoin(System.currentTimeMillis());
             data.setLastJoin(System.currentTimeMillis());
+            // Defaults are the base if another server creates the player first
+            data.setSynced(data.copy());
+        } else {
+            data.clearDirty();
         }
 
-        playerDataMap.put(uuid, data);
         return data;
     }
 
     /**
-     * Saves player data for a specific player
+     * Saves player data for a specific player (if it changed)
      */
     public void savePlayerData(UUID uuid) {
         PlayerData data = playerDataMap.get(uuid);
+        if (data == null) {
+            synchronized (offlineCache) {
+                data = offlineCache.get(uuid);
+            }
+        }
         if (data == null) return;
 
-        File playerFile = new File(playersFolder, uuid.toString() + ".yml");
-        FileConfiguration config = new YamlConfiguration();
-
-        config.set("level", data.getLevel());
-        config.set("experience", data.getExperience());
-        config.set("gems", data.getGems());
-        config.set("generators-placed", data.getGeneratorsPlaced());
-
-        // Save statistics
-        config.set("stats.kills", data.getKills());
-        config.set("stats.deaths", data.getDeaths());
-        config.set("stats.blocks-placed", data.getBlocksPlaced());
-        config.set("stats.blocks-broken", data.getBlocksBroken());
-        config.set("stats.money-collected", data.getMoneyCollected());
-        config.set("stats.gems-collected", data.getGemsCollected());
-        config.set("stats.playtime", data.getPlaytime());
-        config.set("first-join", data.getFirstJoin());
-        config.set("last-join", data.getLastJoin());
+        savePlayers(Collections.singletonList(data));
+    }
 
-        try {
-            config.save(playerFile);
-        } catch (IOException e) {
-            plugin.getLogger().severe("Could not save player data for " + uuid);
-            e.printStackTrace();
+    /**
+     * Saves all changed player data and generators
+     */
+    public void saveAllData() {
+        // Save changed player data, online and cached offline players
+        int players = savePlayers(getAllPlayerData());
+
+        // Save generator locations
+        int generators = saveGeneratorLocations();
+
+        plugin.getLogger().info("All data saved! (" + players + " players, " + generators + " generators changed)");
+    }
+
+    /**
+     * Writes the dirty players of a collection and returns how many there were
+     */
+    private int savePlayers(Collection<PlayerData> players) {
+        return writePlayers(snapshotPlayers(players));
+    }
+
+    /**
+     * Copies the dirty players of a collection, on the thread that changes them (the main thread)
+     */
+    private Map<PlayerData, PlayerData> snapshotPlayers(Collection<PlayerData> players) {
+        Map<PlayerData, PlayerData> snapshots = new LinkedHashMap<>();
+        for (PlayerData data : players) {
+            // Cleared before the values are copied, changes made after this mark it again
+            if (data.clearDirty()) {
+                snapshots.put(data, data.copy());
+            }
         }
+        return snapshots;
     }
 
     /**
-     * Saves all player data
+     * Writes player snapshots (live data -> copy) from any thread and returns how many there were.
+     * The version and base are taken over under the save lock, so the next save starts from this one,
+     * what other servers added to the rows is added to the live data on the main thread.
      */
-    public void saveAllData() {
-        // Save all player data
-        for (UUID uuid : playerDataMap.keySet()) {
-            savePlayerData(uuid);
+    private int writePlayers(Map<PlayerData, PlayerData> snapshots) {
+        if (snapshots.isEmpty()) return 0;
+
+        boolean saved;
+        synchronized (playerSaveLock) {
+            // Version and base as left by any save that ran before this one
+            snapshots.forEach((data, snapshot) -> {
+                snapshot.setVersion(data.getVersion());
+                snapshot.setSynced(data.getSynced());
+            });
+
+            saved = plugin.getStorage().savePlayers(snapshots.values());
+
+            if (saved) {
+                snapshots.forEach((data, snapshot) -> {
+                    data.setVersion(snapshot.getVersion());
+                    data.setSynced(snapshot.getSynced());
+                });
+            }
         }
 
-        // Save generator locations
-        saveGeneratorLocations();
+        if (!saved) {
+            // Try them again on the next save
+            snapshots.keySet().forEach(PlayerData::markDirty);
+            return snapshots.size();
+        }
 
-        plugin.getLogger().info("All data saved!");
+        // The written rows minus our snapshots, zero unless a row was merged
+        plugin.runOnMainThread(() -> snapshots.forEach((data, snapshot) ->
+                data.addDifference(snapshot.getSynced(), snapshot)));
+        return snapshots.size();
     }
 
     /**
-     * Gets player data (loads if not cached)
+     * Gets player data held in memory. Offline players that are not cached return null
+     * and are loaded into the cache async, storage is never read on the calling thread.
      */
     public PlayerData getPlayerData(UUID uuid) {
-        if (!playerDataMap.containsKey(uuid)) {
-            return loadPlayerData(uuid);
+        PlayerData data = getLoadedPlayerData(uuid);
+        if (data == null) {
+            loadPlayerDataAsync(uuid);
+        }
+        return data;
+    }
+
+    /**
+     * Gets player data, offline players that are not cached are read from storage off the main thread.
+     * The future completes on the main thread.
+     */
+    public CompletableFuture<PlayerData> loadPlayerDataAsync(UUID uuid) {
+        PlayerData data = getLoadedPlayerData(uuid);
+        if (data != null) {
+            return CompletableFuture.completedFuture(data);
+        }
+
+        // One read per player, later lookups wait for the same one
+        return pendingLoads.computeIfAbsent(uuid, key -> {
+            CompletableFuture<PlayerData> future = new CompletableFuture<>();
+            plugin.runAsync(() -> {
+                try {
+                    PlayerData loaded = loadFromStorage(uuid);
+                    plugin.runOnMainThread(() -> {
+                        pendingLoads.remove(uuid);
+                        future.complete(cacheLoaded(loaded));
+                    });
+                } catch (RuntimeException e) {
+                    plugin.getLogger().severe("Could not load player data for " + uuid);
+                    e.printStackTrace();
+                    pendingLoads.remove(uuid);
+                    future.completeExceptionally(e);
+                }
+            });
+            return future;
+        });
+    }
+
+    /**
+     * Caches an offline player read from storage, unless the player joined or was cached meanwhile
+     */
+    private PlayerData cacheLoaded(PlayerData loaded) {
+        PlayerData current = playerDataMap.get(loaded.getUuid());
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (offlineCache) {
+            current = offlineCache.putIfAbsent(loaded.getUuid(), loaded);
+        }
+        return current != null ? current : loaded;
+    }
+
+    /**
+     * Gets an online or cached offline player's data, null if it is not in memory
+     */
+    private PlayerData getLoadedPlayerData(UUID uuid) {
+        PlayerData data = playerDataMap.get(uuid);
+        if (data != null) {
+            return data;
+        }
+
+        synchronized (offlineCache) {
+            return offlineCache.get(uuid);
         }
-        return playerDataMap.get(uuid);
     }
 
     /**
@@ -195,61 +318,91 @@ public class DataManager {
     }
 
     /**
-     * Unloads player data from cache (called on logout)
+     * Unloads player data from cache (called on logout), the save runs on the player save thread
      */
     public void unloadPlayerData(UUID uuid) {
-        savePlayerData(uuid);
-        playerDataMap.remove(uuid);
+        PlayerData data = playerDataMap.remove(uuid);
+        if (data != null) {
+            queueSave(data);
+        }
     }
 
     /**
-     * Loads generator locations from file
+     * Saves a player that is dropped from memory on the player save thread, if it changed
      */
-    public void loadGeneratorLocations() {
-        generatorLocations.clear();
+    private void queueSave(PlayerData data) {
+        // Values are copied here, the save thread never reads the live object's stats
+        Map<PlayerData, PlayerData> snapshot = snapshotPlayers(Collections.singletonList(data));
+        if (snapshot.isEmpty()) return;
+
+        UUID uuid = data.getUuid();
+        Runnable save = () -> writePlayers(snapshot);
 
-        if (!generatorsFile.exists()) {
+        if (saveExecutor.isShutdown()) {
+            save.run();
             return;
         }
 
-        FileConfiguration config = YamlConfiguration.loadConfiguration(generatorsFile);
-        ConfigurationSection section = config.getConfigurationSection("generators");
+        // Chained per player, so saves of the same player are written in order
+        CompletableFuture<Void> future = pendingSaves.compute(uuid, (key, previous) ->
+                (previous != null ? previous : CompletableFuture.<Void>completedFuture(null))
+                        .exceptionally(e -> null)
+                        .thenRunAsync(save, saveExecutor));
+        future.whenComplete((result, e) -> {
+            if (e != null) {
+                plugin.getLogger().severe("Could not save player data for " + uuid);
+                e.printStackTrace();
+            }
+            pendingSaves.remove(uuid, future);
+        });
+    }
 
-        if (section == null) {
-            return;
+    /**
+     * Waits for queued quit saves and stops the player save thread (called on disable)
+     */
+    public void flushPendingSaves() {
+        saveExecutor.shutdown();
+        try {
+            if (!saveExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                plugin.getLogger().severe(pendingSaves.size() + " player saves did not finish in time!");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+    }
 
-        for (String key : section.getKeys(false)) {
-            ConfigurationSection genSection = section.getConfigurationSection(key);
-            if (genSection == null) continue;
-
-            try {
-                String worldName = genSection.getString("world");
-                int x = genSection.getInt("x");
-                int y = genSection.getInt("y");
-                int z = genSection.getInt("z");
-                int tier = genSection.getInt("tier");
-                String ownerString = genSection.getString("owner");
-
-                UUID owner = null;
-                if (ownerString != null && !ownerString.isEmpty()) {
-                    try {
-                        owner = UUID.fromString(ownerString);
-                    } catch (IllegalArgumentException e) {
-                        plugin.getLogger().warning("Invalid owner UUID in generator data: " + ownerString);
-                    }
-                }
+    /**
+     * Loads generator locations from storage
+     */
+    public void loadGeneratorLocations() {
+        generatorLocations.clear();
+        generatorChunks.clear();
+        loadedGeneratorChunks.clear();
+        stackTops.clear();
+        removedGenerators.clear();
+
+        for (Map.Entry<Location, GeneratorData> entry : plugin.getStorage().loadGenerators().entrySet()) {
+            entry.getValue().markSaved(entry.getValue().getChanges());
+            generatorLocations.put(entry.getKey(), entry.getValue());
+            indexGenerator(entry.getKey());
+            indexOwner(entry.getKey(), entry.getValue().getOwner());
+        }
 
-                Location location = new Location(
-                        Bukkit.getWorld(worldName),
-                        x, y, z
-                );
+        // Chunks loaded before we registered our listener (spawn chunks etc.)
+        refreshLoadedChunks();
 
-                if (location.getWorld() != null) {
-                    generatorLocations.put(location, new GeneratorData(tier, owner));
-                }
-            } catch (Exception e) {
-                plugin.getLogger().warning("Error loading generator at key: " + key);
+        // Generators in unloaded chunks accrue from now on, unless they were already parked
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Location, GeneratorData> entry : generatorLocations.entrySet()) {
+            if (entry.getValue().getParkedSince() == 0 && !isChunkLoaded(entry.getKey())) {
+                entry.getValue().park(now, ParkReason.UNLOADED);
+            }
+        }
+
+        // Build the stack index, each column is walked once
+        for (Location location : generatorLocations.keySet()) {
+            if (!stackTops.containsKey(location)) {
+                relinkStack(location);
             }
         }
 
@@ -257,32 +410,58 @@ public class DataManager {
     }
 
     /**
-     * Saves generator locations to file
+     * Saves the generators that changed since the last save and returns how many were written or deleted
      */
-    public void saveGeneratorLocations() {
-        FileConfiguration config = new YamlConfiguration();
+    public int saveGeneratorLocations() {
+        return prepareGeneratorSave().getAsInt();
+    }
 
-        int index = 0;
+    /**
+     * Copies the generators that changed since the last save, must run on the main thread.
+     * The returned task writes the copies from any thread and returns how many were written or deleted,
+     * generators only count as saved once storage accepted them.
+     */
+    public IntSupplier prepareGeneratorSave() {
+        List<Location> removed = new ArrayList<>(removedGenerators);
+        removedGenerators.clear();
+
+        // Backends that rewrite the whole file still need every generator
+        StorageBackend storage = plugin.getStorage();
+        boolean partial = storage.supportsPartialSaves();
+
+        Map<Location, GeneratorData> copies = new HashMap<>();
+        Map<GeneratorData, Long> changed = new HashMap<>();
         for (Map.Entry<Location, GeneratorData> entry : generatorLocations.entrySet()) {
-            Location loc = entry.getKey();
             GeneratorData data = entry.getValue();
+            if (data.isDirty()) {
+                changed.put(data, data.getChanges());
+            } else if (partial) {
+                continue;
+            }
+            copies.put(entry.getKey(), data.copy());
+        }
 
-            String path = "generators." + index;
-            config.set(path + ".world", loc.getWorld().getName());
-            config.set(path + ".x", loc.getBlockX());
-            config.set(path + ".y", loc.getBlockY());
-            config.set(path + ".z", loc.getBlockZ());
-            config.set(path + ".tier", data.getTier());
-            config.set(path + ".owner", data.getOwner() != null ? data.getOwner().toString() : "");
+        if (changed.isEmpty() && removed.isEmpty()) return () -> 0;
 
-            index++;
-        }
+        return () -> {
+            if (storage.saveGenerators(copies, removed)) {
+                changed.forEach(GeneratorData::markSaved);
+            } else {
+                // Try them again on the next save, changed generators are still dirty
+                plugin.runOnMainThread(() -> requeueRemoved(removed));
+            }
+            return changed.size() + removed.size();
+        };
+    }
 
-        try {
-            config.save(generatorsFile);
-        } catch (IOException e) {
-            plugin.getLogger().severe("Could not save generator locations!");
-            e.printStackTrace();
+    /**
+     * Queues deletions that failed again, locations that got a new generator meanwhile are saved as that one
+     */
+    private void requeueRemoved(Collection<Location> removed) {
+        for (Location location : removed) {
+            if (!generatorLocations.containsKey(location)) {
+                removedGenerators.add(location);
+            }
         }
     }
 
@@ -291,6 +470,11 @@ public class DataManager {
      */
     public void addGenerator(Location location, int tier, UUID owner) {
         generatorLocations.put(location, new GeneratorData(tier, owner));
+        // The new generator overwrites the stored row
+        removedGenerators.remove(location);
+        indexGenerator(location);
+        indexOwner(location, owner);
+        relinkStack(location);
     }
 
     /**
@@ -298,6 +482,22 @@ public class DataManager {
      */
     public UUID removeGenerator(Location location) {
         GeneratorData data = generatorLocations.remove(location);
+        if (data != null) {
+            removedGenerators.add(location);
+            unindexGenerator(location);
+            unindexOwner(location, data.getOwner());
+
+            // Split the stack this generator was part of
+            stackTops.remove(location);
+            Location below = location.clone().add(0, -1, 0);
+            if (generatorLocations.containsKey(below)) {
+                relinkStack(below);
+            }
+            Location above = location.clone().add(0, 1, 0);
+            if (generatorLocations.containsKey(above)) {
+                relinkStack(above);
+            }
+        }
         return data != null ? data.getOwner() : null;
     }
 
@@ -316,6 +516,14 @@ public class DataManager {
         return data != null ? data.getTier() : 0;
     }
 
+    /**
+     * Gets the number of generators stacked in the block at a location
+     */
+    public int getGeneratorCount(Location location) {
+        GeneratorData data = generatorLocations.get(location);
+        return data != null ? data.getCount() : 0;
+    }
+
     /**
      * Gets the owner of a generator at a location
      */
@@ -330,7 +538,7 @@ public class DataManager {
     public void updateGeneratorTier(Location location, int tier) {
         GeneratorData data = generatorLocations.get(location);
         if (data != null) {
-            generatorLocations.put(location, new GeneratorData(tier, data.getOwner()));
+            data.setTier(tier);
         }
     }
 
@@ -345,12 +553,227 @@ public class DataManager {
         return result;
     }
 
+    /**
+     * Gets the topmost generator of the stack a generator belongs to (itself if not stacked)
+     */
+    public Location getStackTop(Location location) {
+        return stackTops.getOrDefault(location, location);
+    }
+
+    /**
+     * Recomputes the stack top for every generator in the column containing a generator
+     */
+    private void relinkStack(Location member) {
+        Location bottom = member;
+        Location below = member.clone().add(0, -1, 0);
+        while (generatorLocations.containsKey(below)) {
+            bottom = below;
+            below = below.clone().add(0, -1, 0);
+        }
+
+        Location top = member;
+        Location above = member.clone().add(0, 1, 0);
+        while (generatorLocations.containsKey(above)) {
+            top = above;
+            above = above.clone().add(0, 1, 0);
+        }
+
+        for (int y = bottom.getBlockY(); y <= top.getBlockY(); y++) {
+            Location location = new Location(bottom.getWorld(), bottom.getBlockX(), y, bottom.getBlockZ());
+            stackTops.put(location, top);
+        }
+    }
+
+    /**
+     * Gets the generator data at a location
+     */
+    public GeneratorData getGeneratorData(Location location) {
+        return generatorLocations.get(location);
+    }
+
+    /**
+     * Runs an action for every generator in a currently loaded chunk
+     */
+    public void forEachActiveGenerator(BiConsumer<Location, GeneratorData> action) {
+        for (Map<Long, Set<Location>> chunks : loadedGeneratorChunks.values()) {
+            for (Set<Location> locations : chunks.values()) {
+                for (Location location : locations) {
+                    GeneratorData data = generatorLocations.get(location);
+                    if (data != null) {
+                        action.accept(location, data);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the generators in a chunk (empty if there are none)
+     */
+    public Set<Location> getGeneratorsInChunk(String worldName, long chunkKey) {
+        Map<Long, Set<Location>> chunks = generatorChunks.get(worldName);
+        if (chunks == null) {
+            return Collections.emptySet();
+        }
+        return chunks.getOrDefault(chunkKey, Collections.emptySet());
+    }
+
+    /**
+     * Marks a chunk as loaded so its generators are ticked
+     */
+    public void markChunkLoaded(Chunk chunk) {
+        String worldName = chunk.getWorld().getName();
+        Map<Long, Set<Location>> chunks = generatorChunks.get(worldName);
+        if (chunks == null) return;
+
+        long chunkKey = getChunkKey(chunk.getX(), chunk.getZ());
+        Set<Location> locations = chunks.get(chunkKey);
+        if (locations != null) {
+            loadedGeneratorChunks.computeIfAbsent(worldName, k -> new HashMap<>()).put(chunkKey, locations);
+        }
+    }
+
+    /**
+     * Gets every generator placed by an owner
+     */
+    public Set<Location> getGeneratorsByOwner(UUID owner) {
+        return ownerGenerators.getOrDefault(owner, Collections.emptySet());
+    }
+
+    /**
+     * Gets every player that owns at least one generator
+     */
+    public Set<UUID> getGeneratorOwners() {
+        return ownerGenerators.keySet();
+    }
+
+    /**
+     * Checks if the chunk of a generator location is currently loaded
+     */
+    public boolean isChunkLoaded(Location location) {
+        Map<Long, Set<Location>> chunks = loadedGeneratorChunks.get(location.getWorld().getName());
+        return chunks != null && chunks.containsKey(getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4));
+    }
+
+    /**
+     * Marks a chunk as unloaded so its generators are skipped
+     */
+    public void markChunkUnloaded(Chunk chunk) {
+        Map<Long, Set<Location>> chunks = loadedGeneratorChunks.get(chunk.getWorld().getName());
+        if (chunks != null) {
+            chunks.remove(getChunkKey(chunk.getX(), chunk.getZ()));
+        }
+    }
+
+    /**
+     * Rebuilds the loaded chunk set from the current world state
+     */
+    public void refreshLoadedChunks() {
+        loadedGeneratorChunks.clear();
+
+        for (Map.Entry<String, Map<Long, Set<Location>>> worldEntry : generatorChunks.entrySet()) {
+            World world = Bukkit.getWorld(worldEntry.getKey());
+            if (world == null) continue;
+
+            for (Map.Entry<Long, Set<Location>> chunkEntry : worldEntry.getValue().entrySet()) {
+                long chunkKey = chunkEntry.getKey();
+                if (world.isChunkLoaded(getChunkX(chunkKey), getChunkZ(chunkKey))) {
+                    loadedGeneratorChunks.computeIfAbsent(worldEntry.getKey(), k -> new HashMap<>())
+                            .put(chunkKey, chunkEntry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a generator to the chunk index
+     */
+    private void indexGenerator(Location location) {
+        World world = location.getWorld();
+        if (world == null) return;
+
+        int chunkX = location.getBlockX() >> 4;
+        int chunkZ = location.getBlockZ() >> 4;
+        long chunkKey = getChunkKey(chunkX, chunkZ);
+
+        Set<Location> locations = generatorChunks
+                .computeIfAbsent(world.getName(), k -> new HashMap<>())
+                .computeIfAbsent(chunkKey, k -> new HashSet<>());
+        locations.add(location);
+
+        if (world.isChunkLoaded(chunkX, chunkZ)) {
+            loadedGeneratorChunks.computeIfAbsent(world.getName(), k -> new HashMap<>()).put(chunkKey, locations);
+        }
+    }
+
+    /**
+     * Adds a generator to its owner's index
+     */
+    private void indexOwner(Location location, UUID owner) {
+        if (owner == null) return;
+        ownerGenerators.computeIfAbsent(owner, k -> new HashSet<>()).add(location);
+    }
+
+    /**
+     * Removes a generator from its owner's index
+     */
+    private void unindexOwner(Location location, UUID owner) {
+        if (owner == null) return;
+
+        Set<Location> locations = ownerGenerators.get(owner);
+        if (locations != null) {
+            locations.remove(location);
+            if (locations.isEmpty()) {
+                ownerGenerators.remove(owner);
+            }
+        }
+    }
+
+    /**
+     * Removes a generator from the chunk index
+     */
+    private void unindexGenerator(Location location) {
+        World world = location.getWorld();
+        if (world == null) return;
+
+        Map<Long, Set<Location>> chunks = generatorChunks.get(world.getName());
+        if (chunks == null) return;
+
+        long chunkKey = getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        Set<Location> locations = chunks.get(chunkKey);
+        if (locations == null) return;
+
+        locations.remove(location);
+        if (locations.isEmpty()) {
+            chunks.remove(chunkKey);
+            Map<Long, Set<Location>> loaded = loadedGeneratorChunks.get(world.getName());
+            if (loaded != null) {
+                loaded.remove(chunkKey);
+            }
+        }
+    }
+
+    /**
+     * Packs chunk coordinates into a single key (same layout as Paper's Chunk#getChunkKey)
+     */
+    public static long getChunkKey(int chunkX, int chunkZ) {
+        return (long) chunkX & 0xffffffffL | ((long) chunkZ & 0xffffffffL) << 32;
+    }
+
+    public static int getChunkX(long chunkKey) {
+        return (int) chunkKey;
+    }
+
+    public static int getChunkZ(long chunkKey) {
+        return (int) (chunkKey >> 32);
+    }
+
     /**
      * Gets the number of generators owned by a player
      */
     public int getPlayerGeneratorCount(UUID uuid) {
         PlayerData data = getPlayerData(uuid);
-        return data.getGeneratorsPlaced();
+        return data != null ? data.getGeneratorsPlaced() : 0;
     }
 
     /**
@@ -359,9 +782,25 @@ public class DataManager {
     public void startAutoSaveTask() {
         int interval = plugin.getConfigManager().getAutoSaveInterval() * 60 * 20; // Convert minutes to ticks
 
-        autoSaveTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, () -> {
+        // Changes are copied on the main thread and written async, the maps are only touched by the main thread
+        autoSaveTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
             plugin.getLogger().info("Auto-saving data...");
-            saveAllData();
+
+            // Dirty players are copied here too, the save thread never reads the live objects
+            Map<PlayerData, PlayerData> players = snapshotPlayers(getAllPlayerData());
+            IntSupplier generators = prepareGeneratorSave();
+            Runnable defenses = plugin.getDefenseDataManager().prepareDefenseSave();
+            // Collectors hold claimable output just like vault mode generators
+            Runnable collectors = plugin.getCollectorManager().prepareCollectorSave();
+
+            plugin.runAsync(() -> {
+                int savedPlayers = writePlayers(players);
+                int savedGenerators = generators.getAsInt();
+                defenses.run();
+                collectors.run();
+
+                plugin.getLogger().info("All data saved! (" + savedPlayers + " players, " + savedGenerators + " generators changed)");
+            });
         }, interval, interval);
 
         plugin.getLogger().info("Auto-save task started! Interval: " + plugin.getConfigManager().getAutoSaveInterval() + " minutes");
@@ -377,30 +816,183 @@ public class DataManager {
     }
 
     /**
-     * Gets all loaded player data
+     * Gets the player data held in memory: online players and cached offline players
      */
     public Collection<PlayerData> getAllPlayerData() {
-        return playerDataMap.values();
+        List<PlayerData> players = new ArrayList<>(playerDataMap.values());
+        synchronized (offlineCache) {
+            players.addAll(offlineCache.values());
+        }
+        return players;
     }
 
     /**
-     * Inner class to store generator data (tier and owner)
+     * Inner class to store generator data (tier, owner and vault storage)
      */
     public static class GeneratorData {
-        private final int tier;
+        private int tier;
         private final UUID owner;
+        // Generators of the same tier merged into this block
+        private int count;
+
+        // Output kept inside the generator when vault mode is enabled
+        private long storedMoney;
+        private long storedGems;
+        private int storedItems;
+
+        // Gem rolls, created on the first cycle (the planner thread rolls gems)
+        private GemCountdown gemCountdown;
+
+        // Time (epoch millis) the generator was parked, 0 = not parked
+        private long parkedSince;
+        // Why it was parked, only offline-generation decides if unloaded time is paid
+        private ParkReason parkReason;
+
+        // Bumped on every change (main thread), savedChanges is what the last successful save wrote,
+        // new generators start dirty
+        private volatile long changes;
+        private volatile long savedChanges;
 
         public GeneratorData(int tier, UUID owner) {
             this.tier = tier;
             this.owner = owner;
+            this.count = 1;
+            this.changes = 1;
+        }
+
+        /**
+         * Copy of the stored values for a save off the main thread
+         */
+        public GeneratorData copy() {
+            GeneratorData copy = new GeneratorData(tier, owner);
+            copy.count = count;
+            copy.storedMoney = storedMoney;
+            copy.storedGems = storedGems;
+            copy.storedItems = storedItems;
+            copy.parkedSince = parkedSince;
+            copy.parkReason = parkReason;
+            return copy;
         }
 
         public int getTier() {
             return tier;
         }
 
+        public void setTier(int tier) {
+            this.tier = tier;
+            this.changes++;
+            // The gem chance depends on the tier, so the countdown has to be sampled again
+            if (gemCountdown != null) {
+                gemCountdown.reset();
+            }
+        }
+
         public UUID getOwner() {
             return owner;
         }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = Math.max(1, count);
+            this.changes++;
+        }
+
+        public long getStoredMoney() {
+            return storedMoney;
+        }
+
+        public long getStoredGems() {
+            return storedGems;
+        }
+
+        /**
+         * Number of nuggets worth of output stored (checked against max-items-per-generator)
+         */
+        public int getStoredItems() {
+            return storedItems;
+        }
+
+        public void store(long money, long gems, int items) {
+            this.storedMoney += money;
+            this.storedGems += gems;
+            this.storedItems += items;
+            this.changes++;
+        }
+
+        public void clearStored() {
+            this.storedMoney = 0;
+            this.storedGems = 0;
+            this.storedItems = 0;
+            this.changes++;
+        }
+
+        public GemCountdown getGemCountdown() {
+            return gemCountdown;
+        }
+
+        public void setGemCountdown(GemCountdown gemCountdown) {
+            this.gemCountdown = gemCountdown;
+        }
+
+        public long getParkedSince() {
+            return parkedSince;
+        }
+
+        /**
+         * Moves the parked time (0 = settled), the reason stays
+         */
+        public void setParkedSince(long parkedSince) {
+            if (this.parkedSince != parkedSince) {
+                this.parkedSince = parkedSince;
+                this.changes++;
+            }
+        }
+
+        /**
+         * Parks the generator from the given time, output accrues until it is settled
+         */
+        public void park(long since, ParkReason reason) {
+            setParkedSince(since);
+            if (this.parkReason != reason) {
+                this.parkReason = reason;
+                this.changes++;
+            }
+        }
+
+        public ParkReason getParkReason() {
+            return parkReason != null ? parkReason : ParkReason.UNLOADED;
+        }
+
+        public boolean isDirty() {
+            return changes != savedChanges;
+        }
+
+        public long getChanges() {
+            return changes;
+        }
+
+        /**
+         * Marks the changes up to the given count as saved, later changes stay dirty
+         */
+        public synchronized void markSaved(long changes) {
+            if (changes > savedChanges) {
+                this.savedChanges = changes;
+            }
+        }
+    }
+
+    /**
+     * Why a generator stopped running and accrues instead
+     */
+    public enum ParkReason {
+        // Its chunk unloaded (paid only with offline-generation)
+        UNLOADED,
+        // Its owner is dormant
+        DORMANT,
+        // The server is under heavy load
+        THROTTLED
     }
-}
\ No newline at end of file
+}
@@ -1,132 +1,94 @@
 package com.pallux.genpvp.managers;
 
 import com.pallux.genpvp.GenPvP;
-import org.bukkit.Bukkit;
+import com.pallux.genpvp.storage.StorageBackend;
 import org.bukkit.Location;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.*;
 
 public class DefenseDataManager {
 
     private final GenPvP plugin;
     private final Map<Location, DefenseBlockData> defenseBlocks;
-    private File defenseFile;
+    // Defense blocks removed since the last save, deleted from storage on the next save
+    private final Set<Location> removedBlocks;
 
     public DefenseDataManager(GenPvP plugin) {
         this.plugin = plugin;
         this.defenseBlocks = new HashMap<>();
-        setupFile();
-    }
-
-    private void setupFile() {
-        File dataFolder = new File(plugin.getDataFolder(), "data");
-        if (!dataFolder.exists()) {
-            dataFolder.mkdirs();
-        }
-
-        defenseFile = new File(dataFolder, "defenses.yml");
-        if (!defenseFile.exists()) {
-            try {
-                defenseFile.createNewFile();
-            } catch (IOException e) {
-                plugin.getLogger().severe("Could not create defenses.yml!");
-                e.printStackTrace();
-            }
-        }
+        this.removedBlocks = new HashSet<>();
     }
 
     public void loadDefenseBlocks() {
         defenseBlocks.clear();
+        removedBlocks.clear();
 
-        if (!defenseFile.exists()) {
-            return;
-        }
-
-        FileConfiguration config = YamlConfiguration.loadConfiguration(defenseFile);
-        ConfigurationSection section = config.getConfigurationSection("defenses");
-
-        if (section == null) {
-            return;
-        }
-
-        for (String key : section.getKeys(false)) {
-            ConfigurationSection defSection = section.getConfigurationSection(key);
-            if (defSection == null) continue;
-
-            try {
-                String worldName = defSection.getString("world");
-                int x = defSection.getInt("x");
-                int y = defSection.getInt("y");
-                int z = defSection.getInt("z");
-                int tier = defSection.getInt("tier");
-                int currentHearts = defSection.getInt("current-hearts");
-                String ownerString = defSection.getString("owner");
-
-                UUID owner = null;
-                if (ownerString != null && !ownerString.isEmpty()) {
-                    try {
-                        owner = UUID.fromString(ownerString);
-                    } catch (IllegalArgumentException e) {
-                        plugin.getLogger().warning("Invalid owner UUID in defense data: " + ownerString);
-                    }
-                }
-
-                Location location = new Location(
-                        Bukkit.getWorld(worldName),
-                        x, y, z
-                );
-
-                if (location.getWorld() != null) {
-                    defenseBlocks.put(location, new DefenseBlockData(tier, currentHearts, owner));
-                }
-            } catch (Exception e) {
-                plugin.getLogger().warning("Error loading defense block at key: " + key);
-                e.printStackTrace();
-            }
-        }
+        defenseBlocks.putAll(plugin.getStorage().loadDefenseBlocks());
+        defenseBlocks.values().forEach(data -> data.markSaved(data.getChanges()));
 
         plugin.getLogger().info("Loaded " + defenseBlocks.size() + " defense blocks!");
     }
 
+    /**
+     * Saves the defense blocks that changed since the last save
+     */
     public void saveDefenseBlocks() {
-        FileConfiguration config = new YamlConfiguration();
+        prepareDefenseSave().run();
+    }
+
+    /**
+     * Copies the defense blocks that changed since the last save, must run on the main thread.
+     * The returned task writes the copies from any thread.
+     */
+    public Runnable prepareDefenseSave() {
+        List<Location> removed = new ArrayList<>(removedBlocks);
+        removedBlocks.clear();
 
-        int index = 0;
+        // Backends that rewrite the whole file still need every block
+        StorageBackend storage = plugin.getStorage();
+        boolean partial = storage.supportsPartialSaves();
+
+        Map<Location, DefenseBlockData> copies = new HashMap<>();
+        Map<DefenseBlockData, Long> changed = new HashMap<>();
         for (Map.Entry<Location, DefenseBlockData> entry : defenseBlocks.entrySet()) {
-            Location loc = entry.getKey();
             DefenseBlockData data = entry.getValue();
+            if (data.isDirty()) {
+                changed.put(data, data.getChanges());
+            } else if (partial) {
+                continue;
+            }
+            copies.put(entry.getKey(), data.copy());
+        }
 
-            String path = "defenses." + index;
-            config.set(path + ".world", loc.getWorld().getName());
-            config.set(path + ".x", loc.getBlockX());
-            config.set(path + ".y", loc.getBlockY());
-            config.set(path + ".z", loc.getBlockZ());
-            config.set(path + ".tier", data.getTier());
-            config.set(path + ".current-hearts", data.getCurrentHearts());
-            config.set(path + ".owner", data.getOwner() != null ? data.getOwner().toString() : "");
+        if (changed.isEmpty() && removed.isEmpty()) return () -> {};
 
-            index++;
-        }
+        return () -> {
+            if (storage.saveDefenseBlocks(copies, removed)) {
+                changed.forEach(DefenseBlockData::markSaved);
+            } else {
+                // Try them again on the next save, changed blocks are still dirty
+                plugin.runOnMainThread(() -> requeueRemoved(removed));
+            }
+        };
+    }
 
-        try {
-            config.save(defenseFile);
-        } catch (IOException e) {
-            plugin.getLogger().severe("Could not save defense blocks!");
-            e.printStackTrace();
+    private void requeueRemoved(Collection<Location> removed) {
+        for (Location location : removed) {
+            if (!defenseBlocks.containsKey(location)) {
+                removedBlocks.add(location);
+            }
         }
     }
 
     public void addDefenseBlock(Location location, int tier, int hearts, UUID owner) {
         defenseBlocks.put(location, new DefenseBlockData(tier, hearts, owner));
+        removedBlocks.remove(location);
     }
 
     public void removeDefenseBlock(Location location) {
-        defenseBlocks.remove(location);
+        if (defenseBlocks.remove(location) != null) {
+            removedBlocks.add(location);
+        }
     }
 
     public boolean isDefenseBlock(Location location) {
@@ -182,11 +144,23 @@ public class DefenseDataManager {
         private final int tier;
         private int currentHearts;
         private final UUID owner;
+        // Bumped on every change (main thread), savedChanges is what the last successful save wrote,
+        // new blocks start dirty
+        private volatile long changes;
+        private volatile long savedChanges;
 
         public DefenseBlockData(int tier, int currentHearts, UUID owner) {
             this.tier = tier;
             this.currentHearts = currentHearts;
             this.owner = owner;
+            this.changes = 1;
+        }
+
+        /**
+         * Copy of the stored values for a save off the main thread
+         */
+        public DefenseBlockData copy() {
+            return new DefenseBlockData(tier, currentHearts, owner);
         }
 
         public int getTier() {
@@ -198,11 +172,31 @@ public class DefenseDataManager {
         }
 
         public void setCurrentHearts(int currentHearts) {
-            this.currentHearts = currentHearts;
+            if (this.currentHearts != currentHearts) {
+                this.currentHearts = currentHearts;
+                this.changes++;
+            }
         }
 
         public UUID getOwner() {
             return owner;
         }
+
+        public boolean isDirty() {
+            return changes != savedChanges;
+        }
+
+        public long getChanges() {
+            return changes;
+        }
+
+        /**
+         * Marks the changes up to the given count as saved, later changes stay dirty
+         */
+        public synchronized void markSaved(long changes) {
+            if (changes > savedChanges) {
+                this.savedChanges = changes;
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.pallux.genpvp.managers;
+
+import java.util.SplittableRandom;
+
+/**
+ * Gem rolls of one generator.
+ * Instead of rolling every cycle, the number of cycles until the next gem is sampled from a geometric distribution,
+ * so a roll without a drop only costs a decrement and skipping from one drop to the next gives a binomial sample
+ * in (expected drops + 1) steps. Only the planner rolls it, synchronized because a tier change resets it from
+ * the main thread.
+ */
+public class GemCountdown {
+
+    private final SplittableRandom random;
+    // Cycles left until the next gem, 0 = not sampled yet
+    private long cyclesUntilGem;
+
+    public GemCountdown(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Counts the gem drops over a number of rolls with the given chance per roll (0 to 1)
+     */
+    public synchronized long countDrops(long rolls, double chance) {
+        if (chance <= 0) return 0;
+        if (chance >= 1) return rolls;
+
+        if (cyclesUntilGem <= 0) {
+            cyclesUntilGem = sampleCycles(random, chance);
+        }
+
+        long drops = 0;
+        long remaining = rolls;
+        while (cyclesUntilGem <= remaining) {
+            remaining -= cyclesUntilGem;
+            drops++;
+            cyclesUntilGem = sampleCycles(random, chance);
+        }
+        cyclesUntilGem -= remaining;
+        return drops;
+    }
+
+    /**
+     * Drops the current countdown, the next roll samples it again (the chance changed)
+     */
+    public synchronized void reset() {
+        cyclesUntilGem = 0;
+    }
+
+    /**
+     * Samples the number of cycles up to and including the next success (geometric distribution, always >= 1)
+     */
+    public static long sampleCycles(SplittableRandom random, double chance) {
+        // 1 - nextDouble() lies in (0, 1], so the logarithm is always finite
+        double uniform = 1.0 - random.nextDouble();
+        double cycles = Math.floor(Math.log(uniform) / Math.log1p(-chance)) + 1;
+        return cycles >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) cycles;
+    }
+
+    /**
+     * Seed for a generator's countdown, stable for the same position and settings.gem-seed
+     */
+    public static long getSeed(long seed, String worldName, int x, int y, int z) {
+        long position = ((long) x & 0x7FFFFFFL)
+                | (((long) z & 0x7FFFFFFL) << 27)
+                | ((long) y << 54);
+        return mix(seed ^ mix(position + 0x9E3779B97F4A7C15L * worldName.hashCode()));
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+}
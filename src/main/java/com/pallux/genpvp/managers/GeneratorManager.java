@@ -1,16 +1,23 @@
 package com.pallux.genpvp.managers;
 
 import com.pallux.genpvp.GenPvP;
+import com.pallux.genpvp.events.GeneratorOutput;
+import com.pallux.genpvp.events.GeneratorProduceEvent;
 import com.pallux.genpvp.utils.ColorUtil;
+import com.pallux.genpvp.utils.PlayerData;
 import org.bukkit.*;
 import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
 import org.bukkit.block.Hopper;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Item;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemFlag;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.scheduler.BukkitTask;
 
 import java.util.*;
@@ -19,11 +26,52 @@ public class GeneratorManager {
 
     private final GenPvP plugin;
     private final Map<Integer, GeneratorTier> generatorTiers;
+    // Most recently created nugget amounts a style keeps built, per style
+    private static final int NUGGET_CACHE_SIZE = 256;
+    // Colorized display name -> tier, for generator items made before they carried a tier tag
+    private final Map<String, Integer> legacyGeneratorNames;
+    private final NamespacedKey generatorTierKey;
+    private final NamespacedKey nuggetTypeKey;
+    private final NamespacedKey nuggetAmountKey;
+    // Output location on generator item entities, so they are tracked again when their chunk reloads
+    private final NamespacedKey itemSourceKey;
+    private NuggetStyle moneyNuggetStyle;
+    private NuggetStyle gemNuggetStyle;
+    // Item entities spawned by generators, keyed by entity -> output location
+    private final Map<UUID, Location> trackedItems;
+    // Live item entity count per output location
+    private final Map<Location, Integer> itemCounts;
+    // Generator -> live inventory of the hopper directly above it
+    private final Map<Location, Inventory> hopperTargets;
+    private final GeneratorParticles particles;
+    private final GeneratorThrottle throttle;
+    private final GeneratorPlanner planner;
+    private BukkitTask throttleTask;
+    private GeneratorScheduler scheduler;
     private BukkitTask generatorTask;
+    // Owners offline for longer than settings.owner-dormancy.offline-hours -> time they went dormant,
+    // their generators are not ticked
+    private final Map<UUID, Long> dormantOwners;
+    private BukkitTask dormancyTask;
+    // Used for gem countdowns when settings.gem-seed is not set
+    private final long sessionGemSeed;
 
     public GeneratorManager(GenPvP plugin) {
         this.plugin = plugin;
         this.generatorTiers = new HashMap<>();
+        this.legacyGeneratorNames = new HashMap<>();
+        this.generatorTierKey = new NamespacedKey(plugin, "generator_tier");
+        this.nuggetTypeKey = new NamespacedKey(plugin, "nugget_type");
+        this.nuggetAmountKey = new NamespacedKey(plugin, "nugget_amount");
+        this.itemSourceKey = new NamespacedKey(plugin, "item_source");
+        this.trackedItems = new HashMap<>();
+        this.itemCounts = new HashMap<>();
+        this.hopperTargets = new HashMap<>();
+        this.particles = new GeneratorParticles(plugin);
+        this.throttle = new GeneratorThrottle(plugin);
+        this.planner = new GeneratorPlanner(plugin.getLogger());
+        this.dormantOwners = new HashMap<>();
+        this.sessionGemSeed = new SplittableRandom().nextLong();
         loadGeneratorTiers();
     }
 
@@ -32,12 +80,16 @@ public class GeneratorManager {
      */
     public void loadGeneratorTiers() {
         generatorTiers.clear();
+        legacyGeneratorNames.clear();
 
         ConfigurationSection section = plugin.getConfigManager().getGeneratorsConfig()
                 .getConfigurationSection("generators");
 
         if (section == null) {
             plugin.getLogger().severe("No generators configuration found!");
+            buildNuggetPrototypes();
+            particles.load();
+            throttle.load();
             return;
         }
 
@@ -56,12 +108,15 @@ public class GeneratorManager {
                 int upgradeCost = tierSection.getInt("upgrade-cost", 0);
                 String displayName = tierSection.getString("display-name", "Generator");
                 int customModelData = tierSection.getInt("custom-model-data", 0);
+                int interval = tierSection.getInt("interval", plugin.getConfigManager().getGeneratorInterval());
 
                 GeneratorTier generatorTier = new GeneratorTier(
-                        tier, block, money, gems, gemChance, shopPrice, upgradeCost, displayName, customModelData
+                        tier, block, money, gems, gemChance, shopPrice, upgradeCost, displayName, customModelData,
+                        Math.max(1, interval)
                 );
 
                 generatorTiers.put(tier, generatorTier);
+                legacyGeneratorNames.putIfAbsent(ColorUtil.colorize(displayName), tier);
 
             } catch (Exception e) {
                 plugin.getLogger().warning("Error loading generator tier " + key + ": " + e.getMessage());
@@ -69,6 +124,104 @@ public class GeneratorManager {
         }
 
         plugin.getLogger().info("Loaded " + generatorTiers.size() + " generator tiers!");
+
+        buildNuggetPrototypes();
+        particles.load();
+        throttle.load();
+    }
+
+    /**
+     * Resolves the nugget item styles and pre-builds a nugget for every amount a tier can produce
+     */
+    private void buildNuggetPrototypes() {
+        moneyNuggetStyle = loadNuggetStyle(NuggetType.MONEY, "money-nugget", "IRON_NUGGET",
+                "<gradient:#2ECC71:#27AE60>{amount} Money</gradient>");
+        gemNuggetStyle = loadNuggetStyle(NuggetType.GEM, "gem-nugget", "GOLD_NUGGET",
+                "<gradient:#E74C3C:#9B59B6>{amount} Gem(s)</gradient>");
+
+        for (GeneratorTier genTier : generatorTiers.values()) {
+            getNugget(moneyNuggetStyle, genTier.getMoney());
+            getNugget(gemNuggetStyle, genTier.getGems());
+        }
+    }
+
+    /**
+     * Reads a nugget section from generators.yml once, colorizing everything that does not depend on the amount
+     */
+    private NuggetStyle loadNuggetStyle(NuggetType type, String path, String defaultMaterial, String defaultName) {
+        ConfigurationSection section = plugin.getConfigManager().getGeneratorsConfig().getConfigurationSection(path);
+
+        Material material;
+        try {
+            material = Material.valueOf(section != null ? section.getString("material", defaultMaterial) : defaultMaterial);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Invalid material for " + path + ", using " + defaultMaterial);
+            material = Material.valueOf(defaultMaterial);
+        }
+
+        String name = section != null ? section.getString("name", defaultName) : defaultName;
+
+        List<String> lore = new ArrayList<>();
+        if (section != null) {
+            for (String line : section.getStringList("lore")) {
+                lore.add(ColorUtil.colorize(line));
+            }
+        }
+
+        boolean glow = section == null || section.getBoolean("glow", true);
+        int customModelData = section != null ? section.getInt("custom-model-data", 0) : 0;
+
+        return new NuggetStyle(material, name, buildNuggetTemplate(type, material, lore, glow, customModelData));
+    }
+
+    /**
+     * Builds everything of a nugget item that does not depend on the amount
+     */
+    private ItemStack buildNuggetTemplate(NuggetType type, Material material, List<String> lore, boolean glow,
+                                          int customModelData) {
+        ItemStack item = new ItemStack(material, 1);
+        ItemMeta meta = item.getItemMeta();
+
+        if (meta != null) {
+            meta.setLore(lore);
+
+            if (glow) {
+                meta.addEnchant(Enchantment.DURABILITY, 1, true);
+                meta.addItemFlags(ItemFlag.HIDE_ENCHANTS);
+            }
+
+            if (customModelData > 0) {
+                meta.setCustomModelData(customModelData);
+            }
+
+            // Identity and amount are read back from here, never from the display name
+            meta.getPersistentDataContainer().set(nuggetTypeKey, PersistentDataType.STRING, type.getId());
+
+            item.setItemMeta(meta);
+        }
+
+        return item;
+    }
+
+    /**
+     * Gets a nugget of a style for an amount, building it from the style template on a cache miss
+     */
+    private ItemStack getNugget(NuggetStyle style, long amount) {
+        ItemStack nugget = style.nuggets.get(amount);
+        if (nugget == null) {
+            nugget = style.template.clone();
+            ItemMeta meta = nugget.getItemMeta();
+
+            if (meta != null) {
+                meta.setDisplayName(ColorUtil.colorize(style.name.replace("{amount}", String.valueOf(amount))));
+                meta.getPersistentDataContainer().set(nuggetAmountKey, PersistentDataType.LONG, amount);
+                nugget.setItemMeta(meta);
+            }
+
+            style.nuggets.put(amount, nugget);
+        }
+
+        return nugget.clone();
     }
 
     /**
@@ -116,7 +269,7 @@ public class GeneratorManager {
 
             List<String> lore = new ArrayList<>();
             lore.add(ColorUtil.colorize("&#808080Tier: &#FFFFFF" + tier));
-            lore.add(ColorUtil.colorize("&#808080Money: &#00FF00$" + genTier.getMoney() + " &#404040/ 10s"));
+            lore.add(ColorUtil.colorize("&#808080Money: &#00FF00$" + genTier.getMoney() + " &#404040/ " + genTier.getInterval() + "s"));
             lore.add(ColorUtil.colorize("&#808080Gems: &#DDA0DD" + genTier.getGems() + " &#404040(" + genTier.getGemChance() + "%)"));
             lore.add("");
             lore.add(ColorUtil.colorize("&#FFFF00Place this block to create a generator!"));
@@ -133,213 +286,795 @@ public class GeneratorManager {
                 meta.setCustomModelData(genTier.getCustomModelData());
             }
 
+            // Add persistent data to identify generator items
+            meta.getPersistentDataContainer().set(generatorTierKey, PersistentDataType.INTEGER, tier);
+
             item.setItemMeta(meta);
         }
 
         return item;
     }
 
+    /**
+     * Checks if an item is a generator item
+     */
+    public boolean isGeneratorItem(ItemStack item) {
+        return getTierFromItem(item) != 0;
+    }
+
+    /**
+     * Gets the tier of a generator item (0 if the item is not a generator)
+     */
+    public int getTierFromItem(ItemStack item) {
+        if (item == null || !item.hasItemMeta()) return 0;
+
+        ItemMeta meta = item.getItemMeta();
+        Integer tier = meta.getPersistentDataContainer().get(generatorTierKey, PersistentDataType.INTEGER);
+        if (tier != null) {
+            return generatorTiers.containsKey(tier) ? tier : 0;
+        }
+
+        // Legacy items without the tier tag
+        if (!meta.hasDisplayName()) return 0;
+        Integer legacyTier = legacyGeneratorNames.get(meta.getDisplayName());
+        return legacyTier != null ? legacyTier : 0;
+    }
+
     /**
      * Creates a money nugget item
      */
-    public ItemStack createMoneyNugget(int amount) {
-        ConfigurationSection section = plugin.getConfigManager().getGeneratorsConfig()
-                .getConfigurationSection("money-nugget");
+    public ItemStack createMoneyNugget(long amount) {
+        return getNugget(moneyNuggetStyle, amount);
+    }
+
+    /**
+     * Creates a gem nugget item
+     */
+    public ItemStack createGemNugget(long amount) {
+        return getNugget(gemNuggetStyle, amount);
+    }
+
+    /**
+     * Checks if an item is a money nugget
+     */
+    public boolean isMoneyNugget(ItemStack item) {
+        return getNuggetType(item) == NuggetType.MONEY;
+    }
+
+    /**
+     * Checks if an item is a gem nugget
+     */
+    public boolean isGemNugget(ItemStack item) {
+        return getNuggetType(item) == NuggetType.GEM;
+    }
+
+    /**
+     * Gets the nugget type of an item, or null if it is not a nugget
+     */
+    public NuggetType getNuggetType(ItemStack item) {
+        if (item == null || !item.hasItemMeta()) return null;
 
-        Material material = Material.valueOf(section.getString("material", "IRON_NUGGET"));
-        ItemStack item = new ItemStack(material, 1);
         ItemMeta meta = item.getItemMeta();
+        String type = meta.getPersistentDataContainer().get(nuggetTypeKey, PersistentDataType.STRING);
+        if (type != null) {
+            return NuggetType.fromId(type);
+        }
 
-        if (meta != null) {
-            String name = section.getString("name", "<gradient:#2ECC71:#27AE60>{amount} Money</gradient>");
-            name = name.replace("{amount}", String.valueOf(amount));
-            meta.setDisplayName(ColorUtil.colorize(name));
+        return migrateLegacyNugget(item, meta);
+    }
 
-            List<String> lore = new ArrayList<>();
-            for (String line : section.getStringList("lore")) {
-                lore.add(ColorUtil.colorize(line));
-            }
-            meta.setLore(lore);
+    /**
+     * Extracts the amount from a money nugget
+     */
+    public long extractMoneyAmount(ItemStack item) {
+        return isMoneyNugget(item) ? readNuggetAmount(item.getItemMeta()) : 0;
+    }
 
-            if (section.getBoolean("glow", true)) {
-                meta.addEnchant(Enchantment.DURABILITY, 1, true);
-                meta.addItemFlags(ItemFlag.HIDE_ENCHANTS);
-            }
+    /**
+     * Extracts the amount from a gem nugget
+     */
+    public long extractGemAmount(ItemStack item) {
+        return isGemNugget(item) ? readNuggetAmount(item.getItemMeta()) : 0;
+    }
 
-            int customModelData = section.getInt("custom-model-data", 0);
-            if (customModelData > 0) {
-                meta.setCustomModelData(customModelData);
-            }
+    /**
+     * Removes every nugget of a type from an inventory in a single pass and returns the total value
+     */
+    public long collectNuggets(Inventory inventory, NuggetType type) {
+        long total = 0;
 
-            item.setItemMeta(meta);
+        for (ItemStack item : inventory.getContents()) {
+            if (item == null || !item.hasItemMeta()) continue;
+
+            // One meta copy per slot, type and amount are both read from it
+            ItemMeta meta = item.getItemMeta();
+            String id = meta.getPersistentDataContainer().get(nuggetTypeKey, PersistentDataType.STRING);
+            NuggetType itemType = id != null ? NuggetType.fromId(id) : migrateLegacyNugget(item, meta);
+
+            if (itemType != type) continue;
+
+            total += readNuggetAmount(meta) * item.getAmount();
+
+            // Remove the item
+            item.setAmount(0);
         }
 
-        return item;
+        return total;
+    }
+
+    private long readNuggetAmount(ItemMeta meta) {
+        Long amount = meta.getPersistentDataContainer().get(nuggetAmountKey, PersistentDataType.LONG);
+        return amount != null ? amount : 0;
     }
 
     /**
-     * Creates a gem nugget item
+     * Recognises nuggets created before they carried persistent data (by material and display name)
+     * and tags them in place, so every later check is a plain data lookup
      */
-    public ItemStack createGemNugget(int amount) {
-        ConfigurationSection section = plugin.getConfigManager().getGeneratorsConfig()
-                .getConfigurationSection("gem-nugget");
+    private NuggetType migrateLegacyNugget(ItemStack item, ItemMeta meta) {
+        if (!meta.hasDisplayName()) return null;
+
+        NuggetType type;
+        String amountText = ChatColor.stripColor(meta.getDisplayName());
+        if (item.getType() == moneyNuggetStyle.material && amountText.contains("Money")) {
+            type = NuggetType.MONEY;
+            amountText = amountText.replace("$", "").replace("Money", "").trim();
+        } else if (item.getType() == gemNuggetStyle.material && amountText.contains("Gem")) {
+            type = NuggetType.GEM;
+            amountText = amountText.replace("Gem(s)", "").replace("Gems", "").replace("Gem", "").trim();
+        } else {
+            return null;
+        }
 
-        Material material = Material.valueOf(section.getString("material", "GOLD_NUGGET"));
-        ItemStack item = new ItemStack(material, 1);
-        ItemMeta meta = item.getItemMeta();
+        long amount;
+        try {
+            amount = Long.parseLong(amountText);
+        } catch (NumberFormatException e) {
+            amount = 0;
+        }
 
-        if (meta != null) {
-            String name = section.getString("name", "<gradient:#E74C3C:#9B59B6>{amount} Gem(s)</gradient>");
-            name = name.replace("{amount}", String.valueOf(amount));
-            meta.setDisplayName(ColorUtil.colorize(name));
+        meta.getPersistentDataContainer().set(nuggetTypeKey, PersistentDataType.STRING, type.getId());
+        meta.getPersistentDataContainer().set(nuggetAmountKey, PersistentDataType.LONG, amount);
+        item.setItemMeta(meta);
 
-            List<String> lore = new ArrayList<>();
-            for (String line : section.getStringList("lore")) {
-                lore.add(ColorUtil.colorize(line));
-            }
-            meta.setLore(lore);
+        return type;
+    }
 
-            if (section.getBoolean("glow", true)) {
-                meta.addEnchant(Enchantment.DURABILITY, 1, true);
-                meta.addItemFlags(ItemFlag.HIDE_ENCHANTS);
+    /**
+     * Starts the generator task that spawns items
+     */
+    public void startGeneratorTask() {
+        // One wheel rotation covers the longest interval, so each slot only holds generators due that tick
+        int longestInterval = plugin.getConfigManager().getGeneratorInterval() * 20;
+        for (GeneratorTier genTier : generatorTiers.values()) {
+            longestInterval = Math.max(longestInterval, genTier.getIntervalTicks());
+        }
+
+        scheduler = new GeneratorScheduler(longestInterval);
+        // Owners found dormant are taken out of the wheel again once their last seen times are read
+        checkDormantOwners();
+        plugin.getDataManager().forEachActiveGenerator((location, data) -> scheduleGenerator(location));
+
+        planner.start(plugin.getConfigManager().isAsyncGeneratorPlanning());
+
+        generatorTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            // Ended boosters no longer count for this tick's cycles
+            plugin.getBoosterManager().expireBoosters();
+            scheduler.tick(this::runGenerator);
+            planner.submit();
+            // Finished plans (this tick's when planning inline, otherwise whatever the planner completed)
+            planner.drain(this::applyAction);
+            particles.flush();
+        }, 1, 1);
+
+        // Owners only go dormant after hours, checking every few minutes is plenty
+        dormancyTask = Bukkit.getScheduler().runTaskTimer(plugin, this::checkDormantOwners, 6000, 6000);
+
+        int throttleInterval = Math.max(1, plugin.getConfigManager().getThrottleCheckInterval());
+        throttleTask = Bukkit.getScheduler().runTaskTimer(plugin, this::updateThrottle, throttleInterval, throttleInterval);
+
+        plugin.getLogger().info("Generator task started! Interval: " + plugin.getConfigManager().getGeneratorInterval() + " seconds");
+    }
+
+    /**
+     * Stops the generator task
+     */
+    public void stopGeneratorTask() {
+        if (generatorTask != null) {
+            generatorTask.cancel();
+            generatorTask = null;
+        }
+        if (dormancyTask != null) {
+            dormancyTask.cancel();
+            dormancyTask = null;
+        }
+        if (throttleTask != null) {
+            throttleTask.cancel();
+            throttleTask = null;
+        }
+
+        // Apply whatever is still being planned so no output is lost
+        planner.stop();
+        planner.drain(this::applyAction);
+        if (scheduler != null) {
+            scheduler.clear();
+            scheduler = null;
+        }
+        hopperTargets.clear();
+        particles.clear();
+        // Dormancy is checked again on start, paused time must not be paid out then
+        long now = System.currentTimeMillis();
+        for (Map.Entry<UUID, Long> entry : dormantOwners.entrySet()) {
+            skipPausedTime(entry.getKey(), entry.getValue(), now);
+        }
+        dormantOwners.clear();
+        // Generators parked by the throttle are settled when the task starts again
+        throttle.reset();
+    }
+
+    /**
+     * Applies the throttle stage for the current server load
+     */
+    private void updateThrottle() {
+        boolean wasAccruing = throttle.isAccruing();
+        if (!throttle.update() || scheduler == null) return;
+
+        if (throttle.isAccruing() && !wasAccruing) {
+            // Take everything out of the wheel, output keeps accruing from now
+            long now = System.currentTimeMillis();
+            plugin.getDataManager().forEachActiveGenerator((location, data) -> {
+                if (isOwnerDormant(data.getOwner())) return;
+
+                scheduler.cancel(location);
+                if (data.getParkedSince() == 0) {
+                    data.park(now, DataManager.ParkReason.THROTTLED);
+                }
+            });
+        } else if (wasAccruing && !throttle.isAccruing()) {
+            // Back into the wheel at their phase, the accrued output is paid on each generator's first cycle
+            plugin.getDataManager().forEachActiveGenerator((location, data) -> startGenerator(location));
+        }
+    }
+
+    /**
+     * Schedules a generator so it starts producing (its chunk must be loaded)
+     */
+    public void scheduleGenerator(Location location) {
+        startGenerator(location);
+        settleParked(location);
+    }
+
+    private void startGenerator(Location location) {
+        if (scheduler == null) return;
+
+        DataManager.GeneratorData data = plugin.getDataManager().getGeneratorData(location);
+        if (data != null && isOwnerDormant(data.getOwner())) {
+            // Stays out of the wheel until the owner is back
+            if (!plugin.getConfigManager().isOwnerDormancyPaused() && data.getParkedSince() == 0) {
+                data.park(System.currentTimeMillis(), DataManager.ParkReason.DORMANT);
             }
+            return;
+        }
 
-            int customModelData = section.getInt("custom-model-data", 0);
-            if (customModelData > 0) {
-                meta.setCustomModelData(customModelData);
+        // Under heavy load generators accrue instead of running
+        if (data != null && throttle.isAccruing()) {
+            if (data.getParkedSince() == 0) {
+                data.park(System.currentTimeMillis(), DataManager.ParkReason.THROTTLED);
             }
+            return;
+        }
 
-            item.setItemMeta(meta);
+        GeneratorTier genTier = getGeneratorTier(plugin.getDataManager().getGeneratorTier(location));
+        int interval = genTier != null ? genTier.getIntervalTicks() : plugin.getConfigManager().getGeneratorInterval() * 20;
+        scheduler.schedule(location, interval);
+        refreshHopperTarget(location);
+    }
+
+    /**
+     * Stops a generator from producing
+     */
+    public void unscheduleGenerator(Location location) {
+        if (scheduler != null) {
+            scheduler.cancel(location);
         }
+        // Tile entity inventories are not valid once the chunk unloads
+        hopperTargets.remove(location);
+    }
 
-        return item;
+    /**
+     * Schedules every generator in a chunk that just loaded and pays out what it accrued while unloaded
+     */
+    public void scheduleChunk(String worldName, long chunkKey) {
+        Set<Location> locations = plugin.getDataManager().getGeneratorsInChunk(worldName, chunkKey);
+        // Start all of them first so stack tops already have their hopper resolved
+        for (Location location : locations) {
+            startGenerator(location);
+        }
+        for (Location location : locations) {
+            settleParked(location);
+        }
     }
 
     /**
-     * Checks if an item is a money nugget
+     * Unschedules every generator in a chunk that is unloading, they accrue until it loads again
      */
-    public boolean isMoneyNugget(ItemStack item) {
-        if (item == null || !item.hasItemMeta()) return false;
+    public void unscheduleChunk(String worldName, long chunkKey) {
+        long now = System.currentTimeMillis();
+        for (Location location : plugin.getDataManager().getGeneratorsInChunk(worldName, chunkKey)) {
+            unscheduleGenerator(location);
+
+            // Dormant generators are either parked already or paused
+            DataManager.GeneratorData data = plugin.getDataManager().getGeneratorData(location);
+            if (data != null && data.getParkedSince() == 0 && !isOwnerDormant(data.getOwner())) {
+                data.park(now, DataManager.ParkReason.UNLOADED);
+            }
+        }
+    }
 
-        ConfigurationSection section = plugin.getConfigManager().getGeneratorsConfig()
-                .getConfigurationSection("money-nugget");
-        Material material = Material.valueOf(section.getString("material", "IRON_NUGGET"));
+    /**
+     * Pays out what a generator produced while its chunk was unloaded, computed in one step
+     * (elapsed cycles times the tier's yield, gems sampled from the binomial distribution)
+     */
+    private void settleParked(Location location) {
+        settleParked(location, isEntitiesLoaded(location));
+    }
 
-        if (item.getType() != material) return false;
+    /**
+     * Settles a parked generator, itemsLoaded tells whether the items in its chunk are tracked
+     */
+    private void settleParked(Location location, boolean itemsLoaded) {
+        DataManager.GeneratorData data = plugin.getDataManager().getGeneratorData(location);
+        if (data == null || data.getParkedSince() <= 0) return;
+
+        // Paused generators settle on wake, once the paused time is taken off
+        if (isOwnerDormant(data.getOwner()) && plugin.getConfigManager().isOwnerDormancyPaused()) return;
+
+        long parkedSince = data.getParkedSince();
+        boolean stillParked = !plugin.getDataManager().isChunkLoaded(location) || isOwnerDormant(data.getOwner())
+                || throttle.isAccruing();
+        boolean vaultMode = plugin.getConfigManager().isVaultModeEnabled();
+        CollectorManager.CollectorData collector = plugin.getCollectorManager().getChunkCollector(location, data.getOwner());
+
+        // Nuggets can only be dropped once the chunk and its items are loaded (they count towards the cap),
+        // keep accruing until then
+        if (!vaultMode && collector == null && (stillParked || !itemsLoaded)) return;
+        data.setParkedSince(0);
+
+        GeneratorTier genTier = getGeneratorTier(data.getTier());
+        if (genTier == null) return;
+
+        // offline-generation only covers unloaded chunks, output held back by the throttle or owner dormancy is owed
+        if (data.getParkReason() == DataManager.ParkReason.UNLOADED
+                && !plugin.getConfigManager().isOfflineGenerationEnabled()) return;
+
+        long intervalMillis = genTier.getIntervalTicks() * 50L;
+        long now = System.currentTimeMillis();
+        long cycles = Math.max(0, now - parkedSince) / intervalMillis;
+
+        // Keep the unfinished cycle for the next settlement
+        if (stillParked) {
+            data.setParkedSince(parkedSince + cycles * intervalMillis);
+        }
+        if (cycles <= 0) return;
+
+        int maxItems = plugin.getConfigManager().getMaxItemsPerGenerator();
+
+        // A chunk collector takes the output, capped like a generator that dropped an item every cycle
+        if (collector != null) {
+            cycles = Math.min(cycles, maxItems);
+            long gemDrops = countSettledGems(location, parkedSince, cycles * data.getCount(), genTier.getGemChance());
+            GeneratorOutput output = createOfflineOutput(location, data,
+                    cycles * genTier.getMoney() * data.getCount(), gemDrops * genTier.getGems());
+            if (output != null) {
+                collector.add(output.getMoney(), output.getGems());
+            }
+            return;
+        }
 
-        ItemMeta meta = item.getItemMeta();
-        if (meta == null || !meta.hasDisplayName()) return false;
+        // Vault mode, every cycle is one stored item like a normal cycle
+        if (vaultMode) {
+            cycles = Math.min(cycles, maxItems - data.getStoredItems());
+            if (cycles <= 0) return;
+
+            long gemDrops = countSettledGems(location, parkedSince, cycles * data.getCount(), genTier.getGemChance());
+            GeneratorOutput output = createOfflineOutput(location, data,
+                    cycles * genTier.getMoney() * data.getCount(), gemDrops * genTier.getGems());
+            if (output != null) {
+                // At most one gem item per cycle, like normal cycles
+                data.store(output.getMoney(), output.getGems(),
+                        (int) (cycles + Math.min(cycles, gemDrops)));
+            }
+            return;
+        }
+
+        // Otherwise the output is handed out as one nugget per type, capped as if every cycle had dropped an item
+        Location topLocation = findTopGenerator(location);
+        cycles = Math.min(cycles, maxItems - countItemsAtLocation(topLocation));
+        if (cycles <= 0) return;
+
+        long gemDrops = countSettledGems(location, parkedSince, cycles * data.getCount(), genTier.getGemChance());
+        GeneratorOutput output = createOfflineOutput(location, data,
+                cycles * genTier.getMoney() * data.getCount(), gemDrops * genTier.getGems());
+        if (output == null) return;
 
-        String displayName = ChatColor.stripColor(meta.getDisplayName());
-        return displayName.contains("Money");
+        if (output.getMoney() > 0) {
+            spawnNugget(topLocation, createMoneyNugget(output.getMoney()), false);
+        }
+        if (output.getGems() > 0) {
+            spawnNugget(topLocation, createGemNugget(output.getGems()), true);
+        }
     }
 
     /**
-     * Checks if an item is a gem nugget
+     * Applies the owner's boosters to output accrued while parked and lets other plugins change it,
+     * null if a listener cancelled it. Boosters active at settlement count for the whole parked time.
      */
-    public boolean isGemNugget(ItemStack item) {
-        if (item == null || !item.hasItemMeta()) return false;
+    private GeneratorOutput createOfflineOutput(Location location, DataManager.GeneratorData data, long money, long gems) {
+        BoosterManager.Multipliers boost = plugin.getBoosterManager().getMultipliers(data.getOwner());
+        GeneratorOutput output = new GeneratorOutput(location, data.getOwner(), data.getTier(), data.getCount(),
+                (long) (money * boost.getMoney()), (long) (gems * boost.getGems()));
+        if (!GeneratorProduceEvent.hasListeners()) return output;
+
+        GeneratorProduceEvent event = new GeneratorProduceEvent(Collections.singletonList(output), true);
+        Bukkit.getPluginManager().callEvent(event);
+        return event.isCancelled() ? null : output;
+    }
 
-        ConfigurationSection section = plugin.getConfigManager().getGeneratorsConfig()
-                .getConfigurationSection("gem-nugget");
-        Material material = Material.valueOf(section.getString("material", "GOLD_NUGGET"));
+    /**
+     * Pays out what the generators in a chunk accrued once its entities are loaded (nugget mode waits for them)
+     */
+    public void settleChunk(String worldName, long chunkKey) {
+        for (Location location : plugin.getDataManager().getGeneratorsInChunk(worldName, chunkKey)) {
+            // Called from the entities load event, the chunk may not report them as loaded yet
+            settleParked(location, true);
+        }
+    }
 
-        if (item.getType() != material) return false;
+    /**
+     * Checks if the entities of a loaded generator's chunk are loaded too (they load after the blocks)
+     */
+    private boolean isEntitiesLoaded(Location location) {
+        World world = location.getWorld();
+        int chunkX = location.getBlockX() >> 4;
+        int chunkZ = location.getBlockZ() >> 4;
+        return world != null && world.isChunkLoaded(chunkX, chunkZ) && world.getChunkAt(chunkX, chunkZ).isEntitiesLoaded();
+    }
 
-        ItemMeta meta = item.getItemMeta();
-        if (meta == null || !meta.hasDisplayName()) return false;
+    /**
+     * Checks if an owner's generators are currently dormant
+     */
+    public boolean isOwnerDormant(UUID owner) {
+        return owner != null && dormantOwners.containsKey(owner);
+    }
+
+    /**
+     * Takes the generators of owners offline for too long out of the scheduler.
+     * Last seen times come from the player files, so they are read off the main thread.
+     */
+    public void checkDormantOwners() {
+        if (!plugin.getConfigManager().isOwnerDormancyEnabled()) return;
 
-        String displayName = ChatColor.stripColor(meta.getDisplayName());
-        return displayName.contains("Gem");
+        List<UUID> offlineOwners = new ArrayList<>();
+        for (UUID owner : plugin.getDataManager().getGeneratorOwners()) {
+            if (!dormantOwners.containsKey(owner) && Bukkit.getPlayer(owner) == null) {
+                offlineOwners.add(owner);
+            }
+        }
+        if (offlineOwners.isEmpty()) return;
+
+        long threshold = System.currentTimeMillis() - plugin.getConfigManager().getOwnerDormancyMillis();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<UUID> dormant = new ArrayList<>();
+            for (UUID owner : offlineOwners) {
+                long lastSeen = Bukkit.getOfflinePlayer(owner).getLastSeen();
+                if (lastSeen > 0 && lastSeen < threshold) {
+                    dormant.add(owner);
+                }
+            }
+            if (dormant.isEmpty() || !plugin.isEnabled()) return;
+
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                // The task may have stopped, or an owner joined in the meantime
+                if (scheduler == null) return;
+                for (UUID owner : dormant) {
+                    if (!dormantOwners.containsKey(owner) && Bukkit.getPlayer(owner) == null) {
+                        setOwnerDormant(owner);
+                    }
+                }
+            });
+        });
     }
 
     /**
-     * Extracts the amount from a money nugget
+     * Unschedules all generators of an owner at once (found through the owner index)
      */
-    public int extractMoneyAmount(ItemStack item) {
-        if (!isMoneyNugget(item)) return 0;
+    private void setOwnerDormant(UUID owner) {
+        boolean paused = plugin.getConfigManager().isOwnerDormancyPaused();
+        long now = System.currentTimeMillis();
+        for (Location location : plugin.getDataManager().getGeneratorsByOwner(owner)) {
+            unscheduleGenerator(location);
+
+            DataManager.GeneratorData data = plugin.getDataManager().getGeneratorData(location);
+            if (data == null) continue;
+
+            if (paused) {
+                // Keep what was made before going dormant, nothing after. What cannot be paid out yet
+                // (nugget mode in an unloaded chunk) stays parked, the paused time is skipped on wake.
+                settleParked(location);
+            } else if (data.getParkedSince() == 0) {
+                data.park(now, DataManager.ParkReason.DORMANT);
+            }
+        }
+        dormantOwners.put(owner, now);
 
-        String displayName = ChatColor.stripColor(item.getItemMeta().getDisplayName());
-        displayName = displayName.replace("$", "").replace("Money", "").trim();
+        if (plugin.getConfigManager().isDebugEnabled()) {
+            plugin.getLogger().info("Generators of " + owner + " are now dormant");
+        }
+    }
 
-        try {
-            return Integer.parseInt(displayName);
-        } catch (NumberFormatException e) {
-            return 0;
+    /**
+     * Puts an owner's generators back into the scheduler (called when the owner joins)
+     */
+    public void wakeOwner(UUID owner) {
+        Long dormantSince = dormantOwners.remove(owner);
+        if (dormantSince == null) return;
+
+        long now = System.currentTimeMillis();
+        skipPausedTime(owner, dormantSince, now);
+        for (Location location : plugin.getDataManager().getGeneratorsByOwner(owner)) {
+            if (plugin.getDataManager().isChunkLoaded(location)) {
+                // Also pays out what was accrued while dormant
+                scheduleGenerator(location);
+            } else {
+                DataManager.GeneratorData data = plugin.getDataManager().getGeneratorData(location);
+                if (data != null && data.getParkedSince() == 0) {
+                    data.park(now, DataManager.ParkReason.UNLOADED);
+                }
+            }
         }
     }
 
     /**
-     * Extracts the amount from a gem nugget
+     * Moves the parked time of an owner's generators past the time they were paused (owner dormancy in PAUSE mode)
      */
-    public int extractGemAmount(ItemStack item) {
-        if (!isGemNugget(item)) return 0;
+    private void skipPausedTime(UUID owner, long dormantSince, long now) {
+        if (!plugin.getConfigManager().isOwnerDormancyPaused()) return;
 
-        String displayName = ChatColor.stripColor(item.getItemMeta().getDisplayName());
-        displayName = displayName.replace("Gem(s)", "").replace("Gems", "").replace("Gem", "").trim();
+        for (Location location : plugin.getDataManager().getGeneratorsByOwner(owner)) {
+            DataManager.GeneratorData data = plugin.getDataManager().getGeneratorData(location);
+            if (data != null && data.getParkedSince() > 0) {
+                data.setParkedSince(Math.min(now, data.getParkedSince() + (now - dormantSince)));
+            }
+        }
+    }
 
-        try {
-            return Integer.parseInt(displayName);
-        } catch (NumberFormatException e) {
-            return 0;
+    /**
+     * Runs one production cycle for a generator and returns its next interval in ticks (0 = stop)
+     */
+    private int runGenerator(Location location) {
+        DataManager.GeneratorData data = plugin.getDataManager().getGeneratorData(location);
+        if (data == null || location.getWorld() == null) return 0;
+
+        GeneratorTier genTier = getGeneratorTier(data.getTier());
+        if (genTier == null) return plugin.getConfigManager().getGeneratorInterval() * 20;
+
+        // Output accrued while parked (unloaded chunk, dormant owner or throttled) is paid on the first cycle back
+        if (data.getParkedSince() > 0) {
+            settleParked(location);
+        }
+
+        // Under load a cycle covers several intervals, every generator in the stack counts
+        int stretch = throttle.getStretchFactor();
+        int interval = genTier.getIntervalTicks() * stretch;
+        long generators = (long) data.getCount() * stretch;
+
+        // Decide where the output goes, the amounts are worked out by the planner.
+        // This reads live world state (collector block, item counts, vault fill), so it stays on the main thread.
+        GeneratorPlanner.Route route;
+        Location target = location;
+
+        if (plugin.getCollectorManager().getChunkCollector(location, data.getOwner()) != null) {
+            // A collector in the chunk takes the output directly, no entities or hoppers involved
+            route = GeneratorPlanner.Route.COLLECTOR;
+        } else if (plugin.getConfigManager().isVaultModeEnabled()) {
+            // Vault mode keeps the output inside the generator, no entities are created
+            if (data.getStoredItems() >= plugin.getConfigManager().getMaxItemsPerGenerator()) return interval;
+            route = GeneratorPlanner.Route.VAULT;
+        } else {
+            // Find the highest generator in the stack
+            target = findTopGenerator(location);
+
+            // Check if max items reached at this location, unknown until the chunk's items are loaded again
+            if (!isEntitiesLoaded(target)
+                    || countItemsAtLocation(target) >= plugin.getConfigManager().getMaxItemsPerGenerator()) return interval;
+            route = GeneratorPlanner.Route.DROP;
         }
+
+        prepareGemCountdown(location, data);
+        planner.add(location, target, route, genTier, generators,
+                plugin.getBoosterManager().getMultipliers(data.getOwner()), data);
+        return interval;
     }
 
     /**
-     * Starts the generator task that spawns items
+     * Apply phase of a generator cycle, only touches the world and the storage counters (main thread)
      */
-    public void startGeneratorTask() {
-        int interval = plugin.getConfigManager().getGeneratorInterval() * 20; // Convert to ticks
+    private void applyAction(GeneratorPlanner.Action action) {
+        Location location = action.getLocation();
 
-        generatorTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            Map<Location, Integer> generators = plugin.getDataManager().getAllGenerators();
+        // The generator may have been broken since it was planned
+        DataManager.GeneratorData data = plugin.getDataManager().getGeneratorData(location);
+        if (data == null) return;
+
+        boolean gem = action.getGems() > 0;
 
-            for (Map.Entry<Location, Integer> entry : generators.entrySet()) {
-                Location location = entry.getKey();
-                int tier = entry.getValue();
+        switch (action.getRoute()) {
+            case COLLECTOR:
+                CollectorManager.CollectorData collector = plugin.getCollectorManager().getChunkCollector(location, data.getOwner());
+                if (collector == null) return;
 
-                if (location.getWorld() == null) continue;
+                collector.add(action.getMoney(), action.getGems());
+                spawnParticles(location, gem);
+                break;
 
-                // Check if chunk is loaded
-                if (!location.getWorld().isChunkLoaded(location.getBlockX() >> 4, location.getBlockZ() >> 4)) {
-                    continue;
+            case VAULT:
+                if (action.getMoney() > 0) {
+                    data.store(action.getMoney(), 0, 1);
+                }
+                if (gem) {
+                    data.store(0, action.getGems(), 1);
                 }
+                spawnParticles(location, gem);
+                break;
 
-                GeneratorTier genTier = getGeneratorTier(tier);
-                if (genTier == null) continue;
+            case DROP:
+                // Generate money nugget, one nugget for the whole stack
+                if (action.getMoney() > 0) {
+                    spawnNugget(action.getTarget(), createMoneyNugget(action.getMoney()), false);
+                }
+                if (gem) {
+                    spawnNugget(action.getTarget(), createGemNugget(action.getGems()), true);
+                }
+                break;
+        }
+    }
 
-                // Find the highest generator in the stack
-                Location topLocation = findTopGenerator(location);
+    /**
+     * Creates the generator's gem countdown if it has none yet (main thread, reads the config).
+     * Once created it is only rolled by the planner.
+     */
+    private void prepareGemCountdown(Location location, DataManager.GeneratorData data) {
+        if (data.getGemCountdown() != null) return;
 
-                // Check if max items reached at this location
-                if (countItemsAtLocation(topLocation) >= plugin.getConfigManager().getMaxItemsPerGenerator()) {
-                    continue;
-                }
+        data.setGemCountdown(new GemCountdown(getGemSeed(location, 0)));
+    }
 
-                // Generate money nugget
-                spawnNugget(topLocation, createMoneyNugget(genTier.getMoney()), false);
+    /**
+     * Counts the gem drops of a settlement with the tier's gem chance (in percent).
+     * Uses a countdown of its own instead of the generator's, which the planner thread may be rolling right now.
+     * The rolls are independent, so a fresh countdown gives the same distribution.
+     */
+    private long countSettledGems(Location location, long parkedSince, long rolls, double gemChance) {
+        return new GemCountdown(getGemSeed(location, parkedSince)).countDrops(rolls, gemChance / 100.0);
+    }
 
-                // Chance to generate gem nugget
-                double random = Math.random() * 100;
-                if (random < genTier.getGemChance()) {
-                    spawnNugget(topLocation, createGemNugget(genTier.getGems()), true);
-                }
-            }
-        }, interval, interval);
+    /**
+     * Gem countdown seed, stable for the same position, settings.gem-seed and salt
+     */
+    private long getGemSeed(Location location, long salt) {
+        long seed = plugin.getConfigManager().getGemSeed();
+        if (seed == 0) {
+            seed = sessionGemSeed;
+        }
+        String worldName = location.getWorld() != null ? location.getWorld().getName() : "";
+        return GemCountdown.getSeed(seed ^ salt, worldName,
+                location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
 
-        plugin.getLogger().info("Generator task started! Interval: " + plugin.getConfigManager().getGeneratorInterval() + " seconds");
+    /**
+     * Claims everything stored in a generator (vault mode)
+     */
+    public void claimVault(Player player, Location location) {
+        DataManager.GeneratorData data = plugin.getDataManager().getGeneratorData(location);
+        if (data == null) return;
+
+        // Include anything accrued while the chunk was unloaded
+        settleParked(location);
+
+        if (data.getStoredItems() <= 0) {
+            player.sendMessage(plugin.getConfigManager().getMessage("generator.vault-empty"));
+            return;
+        }
+
+        long money = data.getStoredMoney();
+        long gems = data.getStoredGems();
+        data.clearStored();
+
+        if (money > 0) {
+            depositMoney(player, money);
+            player.sendMessage(plugin.getConfigManager()
+                    .getMessage("nugget.money-collected", "{amount}", ColorUtil.formatNumber(money)));
+        }
+
+        if (gems > 0) {
+            depositGems(player, (int) Math.min(Integer.MAX_VALUE, gems));
+            player.sendMessage(plugin.getConfigManager()
+                    .getMessage("nugget.gems-collected", "{amount}", String.valueOf(gems)));
+        }
+
+        if (plugin.getConfigManager().isSoundsEnabled()) {
+            player.playSound(player.getLocation(), Sound.ENTITY_EXPERIENCE_ORB_PICKUP, 1.0f, 1.0f);
+        }
     }
 
     /**
-     * Stops the generator task
+     * Drops everything stored in a generator as nuggets at the block (vault mode, when it is broken)
      */
-    public void stopGeneratorTask() {
-        if (generatorTask != null) {
-            generatorTask.cancel();
-            generatorTask = null;
+    public void dropVault(Location location) {
+        DataManager.GeneratorData data = plugin.getDataManager().getGeneratorData(location);
+        if (data == null || location.getWorld() == null) return;
+
+        // Same amount a claim would pay out
+        settleParked(location);
+        if (data.getStoredItems() <= 0) return;
+
+        long money = data.getStoredMoney();
+        long gems = data.getStoredGems();
+        data.clearStored();
+
+        if (money > 0) {
+            location.getWorld().dropItemNaturally(location, createMoneyNugget(money));
+        }
+        if (gems > 0) {
+            location.getWorld().dropItemNaturally(location, createGemNugget(gems));
         }
     }
 
+    /**
+     * Pays collected money to a player (economy, statistics and level XP)
+     */
+    public void depositMoney(Player player, double amount) {
+        // Add money to player
+        plugin.getEconomy().depositPlayer(player, amount);
+
+        // Record statistic
+        plugin.getStatisticsManager().recordMoneyCollected(player, amount);
+
+        // Add XP for level system
+        PlayerData data = plugin.getDataManager().getPlayerData(player);
+        data.addExperience((int) amount);
+
+        // Check for level up
+        while (plugin.getLevelManager().canLevelUp(data)) {
+            plugin.getLevelManager().levelUp(data);
+            int newLevel = data.getLevel();
+            int newSlots = plugin.getLevelManager().getCurrentSlots(data);
+
+            // Send level up message
+            player.sendMessage(plugin.getConfigManager()
+                    .getMessage("level.leveled-up", "{level}", String.valueOf(newLevel)));
+            player.sendMessage(plugin.getConfigManager()
+                    .getMessage("level.new-slots", "{slots}", String.valueOf(newSlots)));
+
+            // Play level up sound
+            if (plugin.getConfigManager().isSoundsEnabled()) {
+                player.playSound(player.getLocation(),
+                        Sound.valueOf(plugin.getConfigManager().getSuccessSound()), 1.0f, 1.0f);
+            }
+        }
+    }
+
+    /**
+     * Pays collected gems to a player
+     */
+    public void depositGems(Player player, int amount) {
+        PlayerData data = plugin.getDataManager().getPlayerData(player);
+        data.addGems(amount);
+
+        // Record statistic
+        plugin.getStatisticsManager().recordGemsCollected(player, amount);
+    }
+
     /**
      * Finds the topmost generator in a stack
      */
@@ -349,19 +1084,8 @@ public class GeneratorManager {
             return location;
         }
 
-        Location current = location.clone();
-
-        // Check upwards for more generators
-        while (true) {
-            Location above = current.clone().add(0, 1, 0);
-            if (plugin.getDataManager().isGenerator(above)) {
-                current = above;
-            } else {
-                break;
-            }
-        }
-
-        return current;
+        // Maintained by DataManager on place and break, no walking per cycle
+        return plugin.getDataManager().getStackTop(location);
     }
 
     /**
@@ -370,22 +1094,16 @@ public class GeneratorManager {
     private void spawnNugget(Location location, ItemStack item, boolean isGem) {
         // Check if hopper collection is enabled
         if (plugin.getConfigManager().isHopperCollectionEnabled()) {
-            // Check if there's a hopper above the generator
-            Location hopperLocation = location.clone().add(0, 1, 0);
-            Block hopperBlock = hopperLocation.getBlock();
-
-            if (hopperBlock.getType() == Material.HOPPER) {
-                // Try to add to hopper
-                Hopper hopper = (Hopper) hopperBlock.getState();
+            // Hopper above the generator, tracked from block events
+            Inventory hopperInventory = getHopperTarget(location);
 
+            if (hopperInventory != null) {
                 // Check if hopper has space
-                HashMap<Integer, ItemStack> leftover = hopper.getInventory().addItem(item);
+                HashMap<Integer, ItemStack> leftover = hopperInventory.addItem(item);
 
                 if (leftover.isEmpty()) {
                     // Successfully added to hopper, spawn particles
-                    if (plugin.getConfigManager().isParticlesEnabled()) {
-                        spawnParticles(location, isGem);
-                    }
+                    spawnParticles(location, isGem);
                     return;
                 }
                 // If hopper is full, continue to drop item normally
@@ -397,42 +1115,100 @@ public class GeneratorManager {
         Item droppedItem = location.getWorld().dropItem(spawnLoc, item);
         droppedItem.setVelocity(droppedItem.getVelocity().zero());
         droppedItem.setPickupDelay(0);
+        droppedItem.getPersistentDataContainer().set(itemSourceKey, PersistentDataType.INTEGER_ARRAY,
+                new int[]{location.getBlockX(), location.getBlockY(), location.getBlockZ()});
+        trackItem(droppedItem, location);
 
         // Spawn particles
-        if (plugin.getConfigManager().isParticlesEnabled()) {
-            spawnParticles(location, isGem);
+        spawnParticles(location, isGem);
+    }
+
+    /**
+     * Gets the cached hopper inventory above a generator, or null if there is none
+     */
+    private Inventory getHopperTarget(Location location) {
+        Inventory inventory = hopperTargets.get(location);
+        if (inventory == null) return null;
+
+        // Cheap type read guards against hoppers removed without an event (e.g. world edits)
+        if (location.getWorld().getType(location.getBlockX(), location.getBlockY() + 1, location.getBlockZ()) != Material.HOPPER) {
+            hopperTargets.remove(location);
+            return null;
         }
+
+        return inventory;
     }
 
     /**
-     * Spawns particles for nugget generation
+     * Re-resolves the hopper above a generator (one tile entity lookup, not repeated per cycle)
      */
-    private void spawnParticles(Location location, boolean isGem) {
-        String particleType = isGem ?
-                plugin.getConfigManager().getGemsParticleType() :
-                plugin.getConfigManager().getMoneyParticleType();
-        int particleCount = isGem ?
-                plugin.getConfigManager().getGemsParticleCount() :
-                plugin.getConfigManager().getMoneyParticleCount();
+    public void refreshHopperTarget(Location location) {
+        hopperTargets.remove(location);
 
-        try {
-            Particle particle = Particle.valueOf(particleType);
-            Location spawnLoc = location.clone().add(0.5, 1.2, 0.5);
-            location.getWorld().spawnParticle(particle, spawnLoc, particleCount, 0.3, 0.3, 0.3, 0);
-        } catch (IllegalArgumentException e) {
-            plugin.getLogger().warning("Invalid particle type: " + particleType);
+        if (!plugin.getDataManager().isGenerator(location) || location.getWorld() == null) return;
+
+        Block above = location.getBlock().getRelative(BlockFace.UP);
+        if (above.getType() == Material.HOPPER) {
+            // The inventory of a placed block state is the live tile entity inventory
+            hopperTargets.put(location, ((Hopper) above.getState()).getInventory());
         }
     }
 
+    /**
+     * Forgets the hopper above a generator
+     */
+    public void clearHopperTarget(Location location) {
+        hopperTargets.remove(location);
+    }
+
+    /**
+     * Queues particles for nugget generation (sent once per tick, culled and budgeted)
+     */
+    private void spawnParticles(Location location, boolean isGem) {
+        // First thing dropped when the server is under load
+        if (throttle.isParticlesSuppressed()) return;
+        particles.queue(location, isGem);
+    }
+
     /**
      * Counts items at a specific location
      */
     private int countItemsAtLocation(Location location) {
-        Location center = location.clone().add(0.5, 1, 0.5);
-        return (int) location.getWorld().getNearbyEntities(center, 0.5, 1, 0.5)
-                .stream()
-                .filter(entity -> entity instanceof Item)
-                .count();
+        return itemCounts.getOrDefault(location, 0);
+    }
+
+    /**
+     * Starts tracking an item entity spawned for a generator output location
+     */
+    private void trackItem(Item item, Location location) {
+        trackedItems.put(item.getUniqueId(), location);
+        itemCounts.merge(location, 1, Integer::sum);
+    }
+
+    /**
+     * Tracks a generator item entity again after its chunk reloaded (from the output location it was tagged with)
+     */
+    public void retrackItem(Item item) {
+        if (trackedItems.containsKey(item.getUniqueId())) return;
+
+        int[] source = item.getPersistentDataContainer().get(itemSourceKey, PersistentDataType.INTEGER_ARRAY);
+        if (source == null || source.length != 3) return;
+
+        Location location = new Location(item.getWorld(), source[0], source[1], source[2]);
+        // Items of generators broken since then no longer count anywhere
+        if (plugin.getDataManager().isGenerator(location)) {
+            trackItem(item, location);
+        }
+    }
+
+    /**
+     * Stops tracking an item entity once it leaves the world (pickup, despawn, merge, ...)
+     */
+    public void untrackItem(Item item) {
+        Location location = trackedItems.remove(item.getUniqueId());
+        if (location != null) {
+            itemCounts.computeIfPresent(location, (key, count) -> count > 1 ? count - 1 : null);
+        }
     }
 
     /**
@@ -457,9 +1233,10 @@ public class GeneratorManager {
         private final int upgradeCost;
         private final String displayName;
         private final int customModelData;
+        private final int interval;
 
         public GeneratorTier(int tier, Material block, int money, int gems, double gemChance,
-                             int shopPrice, int upgradeCost, String displayName, int customModelData) {
+                             int shopPrice, int upgradeCost, String displayName, int customModelData, int interval) {
             this.tier = tier;
             this.block = block;
             this.money = money;
@@ -469,6 +1246,7 @@ public class GeneratorManager {
             this.upgradeCost = upgradeCost;
             this.displayName = displayName;
             this.customModelData = customModelData;
+            this.interval = interval;
         }
 
         public int getTier() { return tier; }
@@ -480,5 +1258,59 @@ public class GeneratorManager {
         public int getUpgradeCost() { return upgradeCost; }
         public String getDisplayName() { return displayName; }
         public int getCustomModelData() { return customModelData; }
+        public int getInterval() { return interval; }
+        public int getIntervalTicks() { return interval * 20; }
+    }
+
+    /**
+     * Kinds of nugget a generator produces
+     */
+    public enum NuggetType {
+        MONEY("money"),
+        GEM("gem");
+
+        private final String id;
+
+        NuggetType(String id) {
+            this.id = id;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public static NuggetType fromId(String id) {
+            for (NuggetType type : values()) {
+                if (type.id.equals(id)) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Resolved nugget appearance from generators.yml
+     */
+    private static class NuggetStyle {
+        private final Material material;
+        // Raw display name, colorized per amount
+        private final String name;
+        // Nugget without a display name or amount, only ever handed out as clones
+        private final ItemStack template;
+        // Amount -> built nugget, least recently used amounts are dropped first
+        private final Map<Long, ItemStack> nuggets;
+
+        private NuggetStyle(Material material, String name, ItemStack template) {
+            this.material = material;
+            this.name = name;
+            this.template = template;
+            this.nuggets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, ItemStack> eldest) {
+                    return size() > NUGGET_CACHE_SIZE;
+                }
+            };
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,178 @@
+package com.pallux.genpvp.managers;
+
+import com.pallux.genpvp.GenPvP;
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+
+/**
+ * Buffers generator particles per chunk and sends them once per tick,
+ * only to players close enough to see them and within a per-tick packet budget
+ */
+public class GeneratorParticles {
+
+    private final GenPvP plugin;
+    // World -> chunk key -> particles queued this tick
+    private final Map<World, Map<Long, List<Emission>>> pending;
+    private final List<Player> viewers;
+
+    private boolean enabled;
+    private ParticleStyle moneyStyle;
+    private ParticleStyle gemStyle;
+    private double viewDistanceSquared;
+    private double chunkViewDistanceSquared;
+    private int packetBudget;
+
+    public GeneratorParticles(GenPvP plugin) {
+        this.plugin = plugin;
+        this.pending = new HashMap<>();
+        this.viewers = new ArrayList<>();
+    }
+
+    /**
+     * Resolves particle types and limits from generators.yml
+     */
+    public void load() {
+        pending.clear();
+
+        enabled = plugin.getConfigManager().isParticlesEnabled();
+        moneyStyle = loadStyle("money", plugin.getConfigManager().getMoneyParticleType(),
+                plugin.getConfigManager().getMoneyParticleCount());
+        gemStyle = loadStyle("gems", plugin.getConfigManager().getGemsParticleType(),
+                plugin.getConfigManager().getGemsParticleCount());
+
+        double viewDistance = plugin.getConfigManager().getParticleViewDistance();
+        viewDistanceSquared = viewDistance * viewDistance;
+        // Reach of a chunk measured from its centre (half diagonal is ~11.3 blocks)
+        double chunkReach = viewDistance + 11.4;
+        chunkViewDistanceSquared = chunkReach * chunkReach;
+        packetBudget = plugin.getConfigManager().getParticlePacketBudget();
+    }
+
+    private ParticleStyle loadStyle(String path, String type, int count) {
+        Particle particle;
+        try {
+            particle = Particle.valueOf(type);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Invalid particle type: " + type);
+            return null;
+        }
+
+        ConfigurationSection section = plugin.getConfigManager().getGeneratorsConfig()
+                .getConfigurationSection("particles." + path);
+        double offsetX = section != null ? section.getDouble("offset-x", 0.3) : 0.3;
+        double offsetY = section != null ? section.getDouble("offset-y", 0.3) : 0.3;
+        double offsetZ = section != null ? section.getDouble("offset-z", 0.3) : 0.3;
+
+        return new ParticleStyle(particle, count, offsetX, offsetY, offsetZ);
+    }
+
+    /**
+     * Queues the particles for a generator output, sent on the next flush
+     */
+    public void queue(Location location, boolean isGem) {
+        if (!enabled || (isGem ? gemStyle : moneyStyle) == null) return;
+
+        long chunkKey = DataManager.getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        pending.computeIfAbsent(location.getWorld(), k -> new HashMap<>())
+                .computeIfAbsent(chunkKey, k -> new ArrayList<>())
+                .add(new Emission(location.getBlockX() + 0.5, location.getBlockY() + 1.2, location.getBlockZ() + 0.5, isGem));
+    }
+
+    /**
+     * Sends everything queued this tick
+     */
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        int budget = packetBudget;
+
+        for (Map.Entry<World, Map<Long, List<Emission>>> worldEntry : pending.entrySet()) {
+            List<Player> worldPlayers = worldEntry.getKey().getPlayers();
+            if (worldPlayers.isEmpty()) continue;
+
+            for (Map.Entry<Long, List<Emission>> chunkEntry : worldEntry.getValue().entrySet()) {
+                if (budget <= 0) break;
+
+                // Skip the whole chunk when nobody is near enough to see it
+                long chunkKey = chunkEntry.getKey();
+                double centerX = (DataManager.getChunkX(chunkKey) << 4) + 8;
+                double centerZ = (DataManager.getChunkZ(chunkKey) << 4) + 8;
+
+                viewers.clear();
+                for (Player player : worldPlayers) {
+                    Location playerLocation = player.getLocation();
+                    double dx = playerLocation.getX() - centerX;
+                    double dz = playerLocation.getZ() - centerZ;
+                    if (dx * dx + dz * dz <= chunkViewDistanceSquared) {
+                        viewers.add(player);
+                    }
+                }
+                if (viewers.isEmpty()) continue;
+
+                for (Emission emission : chunkEntry.getValue()) {
+                    if (budget <= 0) break;
+                    ParticleStyle style = emission.gem ? gemStyle : moneyStyle;
+
+                    for (Player player : viewers) {
+                        if (budget <= 0) break;
+
+                        Location playerLocation = player.getLocation();
+                        double dx = playerLocation.getX() - emission.x;
+                        double dy = playerLocation.getY() - emission.y;
+                        double dz = playerLocation.getZ() - emission.z;
+                        if (dx * dx + dy * dy + dz * dz > viewDistanceSquared) continue;
+
+                        player.spawnParticle(style.particle, emission.x, emission.y, emission.z, style.count,
+                                style.offsetX, style.offsetY, style.offsetZ, 0);
+                        budget--;
+                    }
+                }
+            }
+        }
+
+        viewers.clear();
+        pending.clear();
+    }
+
+    /**
+     * Drops anything still queued
+     */
+    public void clear() {
+        pending.clear();
+    }
+
+    private static class ParticleStyle {
+        private final Particle particle;
+        private final int count;
+        private final double offsetX;
+        private final double offsetY;
+        private final double offsetZ;
+
+        private ParticleStyle(Particle particle, int count, double offsetX, double offsetY, double offsetZ) {
+            this.particle = particle;
+            this.count = count;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.offsetZ = offsetZ;
+        }
+    }
+
+    private static class Emission {
+        private final double x;
+        private final double y;
+        private final double z;
+        private final boolean gem;
+
+        private Emission(double x, double y, double z, boolean gem) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.gem = gem;
+        }
+    }
+}
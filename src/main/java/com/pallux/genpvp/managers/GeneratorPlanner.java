@@ -0,0 +1,198 @@
+package com.pallux.genpvp.managers;
+
+import com.pallux.genpvp.events.GeneratorOutput;
+import com.pallux.genpvp.events.GeneratorProduceEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Plan phase of a generator cycle.
+ * The main thread queues what is due with a snapshot of everything needed (tier, booster multipliers, destination),
+ * the planner rolls gems and multiplies out the money, and the main thread applies the results.
+ * Only that arithmetic is planned here. Routing, the collector lookup, the item cap, building nuggets and
+ * settling parked output all stay on the main thread, they read live world state that changes with every drop,
+ * pickup and placement.
+ * With settings.async-generator-planning (off by default) the planning runs on a worker thread, which only touches
+ * the gem countdowns. Settlement rolls a countdown of its own, so nothing else rolls them meanwhile.
+ */
+public class GeneratorPlanner {
+
+    public enum Route {
+        // Added to the chunk collector
+        COLLECTOR,
+        // Stored inside the generator
+        VAULT,
+        // Dropped or put into the hopper on the target block
+        DROP
+    }
+
+    private final Logger logger;
+    private final Queue<List<Action>> results;
+    private List<Request> batch;
+    private ExecutorService executor;
+
+    public GeneratorPlanner(Logger logger) {
+        this.logger = logger;
+        this.results = new ConcurrentLinkedQueue<>();
+        this.batch = new ArrayList<>();
+    }
+
+    /**
+     * Starts planning, on a worker thread when async is true, otherwise inline on submit
+     */
+    public void start(boolean async) {
+        if (async && executor == null) {
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "GenPvP Generator Planner");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Waits for outstanding plans, their results can still be drained afterwards
+     */
+    public void stop() {
+        submit();
+        if (executor == null) return;
+
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warning("Generator planner did not finish in time, some output was not applied");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+
+    /**
+     * Queues a due generator for the next submit (main thread)
+     */
+    public void add(Location location, Location target, Route route, GeneratorManager.GeneratorTier tier,
+                    long generators, BoosterManager.Multipliers boost, DataManager.GeneratorData data) {
+        batch.add(new Request(location, target, route, tier, generators, boost, data.getOwner(), data.getCount(),
+                data.getGemCountdown()));
+    }
+
+    /**
+     * Hands the queued generators to the planner (main thread)
+     */
+    public void submit() {
+        if (batch.isEmpty()) return;
+
+        List<Request> requests = batch;
+        batch = new ArrayList<>();
+
+        if (executor == null) {
+            results.add(plan(requests));
+        } else {
+            executor.execute(() -> results.add(plan(requests)));
+        }
+    }
+
+    /**
+     * Fires GeneratorProduceEvent for every finished plan and applies what is left of it (main thread)
+     */
+    public void drain(Consumer<Action> apply) {
+        List<Action> actions;
+        while ((actions = results.poll()) != null) {
+            // One event for the whole batch, only built when someone listens
+            if (GeneratorProduceEvent.hasListeners()) {
+                List<GeneratorOutput> outputs = new ArrayList<>(actions.size());
+                for (Action action : actions) {
+                    outputs.add(action.output);
+                }
+
+                GeneratorProduceEvent event = new GeneratorProduceEvent(outputs, false);
+                Bukkit.getPluginManager().callEvent(event);
+                if (event.isCancelled()) continue;
+            }
+
+            for (Action action : actions) {
+                if (action.getMoney() <= 0 && action.getGems() <= 0) continue;
+                apply.accept(action);
+            }
+        }
+    }
+
+    private static List<Action> plan(List<Request> requests) {
+        List<Action> actions = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            GeneratorManager.GeneratorTier tier = request.tier;
+
+            long money = (long) (tier.getMoney() * request.generators * request.boost.getMoney());
+            long gemDrops = request.gemCountdown.countDrops(request.generators, tier.getGemChance() / 100.0);
+            long gems = (long) (gemDrops * tier.getGems() * request.boost.getGems());
+
+            GeneratorOutput output = new GeneratorOutput(request.location, request.owner, tier.getTier(), request.count,
+                    money, gems);
+            actions.add(new Action(request.location, request.target, request.route, output));
+        }
+        return actions;
+    }
+
+    private static class Request {
+        private final Location location;
+        private final Location target;
+        private final Route route;
+        private final GeneratorManager.GeneratorTier tier;
+        private final long generators;
+        private final BoosterManager.Multipliers boost;
+        private final UUID owner;
+        private final int count;
+        // The only mutable state the planner touches, synchronized
+        private final GemCountdown gemCountdown;
+
+        private Request(Location location, Location target, Route route, GeneratorManager.GeneratorTier tier,
+                        long generators, BoosterManager.Multipliers boost, UUID owner, int count,
+                        GemCountdown gemCountdown) {
+            this.location = location;
+            this.target = target;
+            this.route = route;
+            this.tier = tier;
+            this.generators = generators;
+            this.boost = boost;
+            this.owner = owner;
+            this.count = count;
+            this.gemCountdown = gemCountdown;
+        }
+    }
+
+    /**
+     * Planned output of one generator cycle
+     */
+    public static class Action {
+        private final Location location;
+        private final Location target;
+        private final Route route;
+        // Amounts, possibly changed by GeneratorProduceEvent listeners
+        private final GeneratorOutput output;
+
+        private Action(Location location, Location target, Route route, GeneratorOutput output) {
+            this.location = location;
+            this.target = target;
+            this.route = route;
+            this.output = output;
+        }
+
+        public Location getLocation() { return location; }
+        public Location getTarget() { return target; }
+        public Route getRoute() { return route; }
+        public long getMoney() { return output.getMoney(); }
+        public long getGems() { return output.getGems(); }
+    }
+}
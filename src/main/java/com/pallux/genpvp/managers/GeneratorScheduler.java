@@ -0,0 +1,157 @@
+package com.pallux.genpvp.managers;
+
+import org.bukkit.Location;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * Hashed timing wheel that drives generator production.
+ * Every generator gets a fixed phase inside its interval (derived from its position),
+ * so production is spread evenly over the ticks of the interval instead of firing all at once.
+ */
+public class GeneratorScheduler {
+
+    private final List<Entry>[] wheel;
+    private final int mask;
+    private final Map<Location, Entry> entries;
+    private final List<Entry> rescheduled;
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public GeneratorScheduler(int minimumSlots) {
+        int size = 1;
+        while (size < minimumSlots) {
+            size <<= 1;
+        }
+
+        this.wheel = new List[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+        this.mask = size - 1;
+        this.entries = new HashMap<>();
+        this.rescheduled = new ArrayList<>();
+        this.currentTick = 0;
+    }
+
+    /**
+     * Schedules a generator at its phase within the given interval (replaces any existing entry)
+     */
+    public void schedule(Location location, int intervalTicks) {
+        cancel(location);
+
+        int interval = Math.max(1, intervalTicks);
+        long phase = Math.floorMod(hashPosition(location), interval);
+        long delay = Math.floorMod(phase - currentTick, (long) interval);
+        if (delay == 0) {
+            delay = interval;
+        }
+
+        Entry entry = new Entry(location, currentTick + delay);
+        entries.put(location, entry);
+        insert(entry);
+    }
+
+    /**
+     * Cancels a scheduled generator (removed lazily from its wheel slot)
+     */
+    public void cancel(Location location) {
+        Entry entry = entries.remove(location);
+        if (entry != null) {
+            entry.cancelled = true;
+        }
+    }
+
+    /**
+     * Checks if a generator is currently scheduled
+     */
+    public boolean isScheduled(Location location) {
+        return entries.containsKey(location);
+    }
+
+    /**
+     * Removes every scheduled generator
+     */
+    public void clear() {
+        for (List<Entry> slot : wheel) {
+            slot.clear();
+        }
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of scheduled generators
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Advances the wheel by one tick and runs every generator that is due.
+     * The action returns the next interval in ticks, or 0 to drop the generator.
+     */
+    public void tick(ToIntFunction<Location> action) {
+        currentTick++;
+        List<Entry> slot = wheel[(int) (currentTick & mask)];
+
+        int write = 0;
+        for (int read = 0; read < slot.size(); read++) {
+            Entry entry = slot.get(read);
+            if (entry.cancelled) {
+                continue;
+            }
+
+            // Entry belongs to a later rotation of the wheel
+            if (entry.deadline > currentTick) {
+                slot.set(write++, entry);
+                continue;
+            }
+
+            int next = action.applyAsInt(entry.location);
+
+            // The action may have cancelled or replaced this entry
+            if (entry.cancelled) {
+                continue;
+            }
+
+            if (next > 0) {
+                entry.deadline = currentTick + next;
+                rescheduled.add(entry);
+            } else {
+                entries.remove(entry.location);
+            }
+        }
+
+        slot.subList(write, slot.size()).clear();
+
+        for (Entry entry : rescheduled) {
+            insert(entry);
+        }
+        rescheduled.clear();
+    }
+
+    private void insert(Entry entry) {
+        wheel[(int) (entry.deadline & mask)].add(entry);
+    }
+
+    private static int hashPosition(Location location) {
+        int hash = location.getBlockX() * 73856093 ^ location.getBlockY() * 19349663 ^ location.getBlockZ() * 83492791;
+        // Spread the bits so neighbouring blocks land on different ticks
+        hash ^= (hash >>> 16);
+        hash *= 0x45d9f3b;
+        hash ^= (hash >>> 16);
+        return hash;
+    }
+
+    private static class Entry {
+        private final Location location;
+        private long deadline;
+        private boolean cancelled;
+
+        private Entry(Location location, long deadline) {
+            this.location = location;
+            this.deadline = deadline;
+        }
+    }
+}
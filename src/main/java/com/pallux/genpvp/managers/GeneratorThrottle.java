@@ -0,0 +1,115 @@
+package com.pallux.genpvp.managers;
+
+import com.pallux.genpvp.GenPvP;
+import org.bukkit.Bukkit;
+
+/**
+ * Tracks server load (average tick time) and picks how much generator work to cut.
+ * Stages are cumulative, a higher stage also applies everything below it.
+ */
+public class GeneratorThrottle {
+
+    public enum Stage {
+        NORMAL,
+        // No generator particles are sent
+        NO_PARTICLES,
+        // Generators run less often and produce the skipped cycles at once
+        STRETCH,
+        // Generators leave the scheduler and accrue like unloaded chunks
+        ACCRUE
+    }
+
+    private final GenPvP plugin;
+    private Stage stage;
+
+    private boolean enabled;
+    private double particlesThreshold;
+    private double stretchThreshold;
+    private double accrueThreshold;
+    private double recoveryMargin;
+    private int stretchFactor;
+
+    public GeneratorThrottle(GenPvP plugin) {
+        this.plugin = plugin;
+        this.stage = Stage.NORMAL;
+    }
+
+    /**
+     * Reads the thresholds from generators.yml
+     */
+    public void load() {
+        enabled = plugin.getConfigManager().isThrottlingEnabled();
+        particlesThreshold = plugin.getConfigManager().getThrottleParticlesMspt();
+        stretchThreshold = plugin.getConfigManager().getThrottleStretchMspt();
+        accrueThreshold = plugin.getConfigManager().getThrottleAccrueMspt();
+        recoveryMargin = plugin.getConfigManager().getThrottleRecoveryMargin();
+        stretchFactor = Math.max(1, plugin.getConfigManager().getThrottleStretchFactor());
+    }
+
+    /**
+     * Re-evaluates the stage from the average tick time and returns true if it changed.
+     * A stage is entered at its threshold but only left once the tick time is recoveryMargin below it.
+     */
+    public boolean update() {
+        Stage previous = stage;
+        double mspt = Bukkit.getAverageTickTime();
+
+        if (!enabled) {
+            stage = Stage.NORMAL;
+        } else {
+            Stage target = getStageFor(mspt);
+            if (target.ordinal() > stage.ordinal()) {
+                stage = target;
+            } else if (target.ordinal() < stage.ordinal()) {
+                Stage recovered = getStageFor(mspt + recoveryMargin);
+                if (recovered.ordinal() < stage.ordinal()) {
+                    stage = recovered;
+                }
+            }
+        }
+
+        if (stage == previous) return false;
+
+        if (stage.ordinal() > previous.ordinal()) {
+            plugin.getLogger().warning(String.format("Generator throttling: %s -> %s (average tick %.1f ms)",
+                    previous, stage, mspt));
+        } else {
+            plugin.getLogger().info(String.format("Generator throttling: %s -> %s (average tick %.1f ms)",
+                    previous, stage, mspt));
+        }
+        return true;
+    }
+
+    private Stage getStageFor(double mspt) {
+        if (mspt >= accrueThreshold) return Stage.ACCRUE;
+        if (mspt >= stretchThreshold) return Stage.STRETCH;
+        if (mspt >= particlesThreshold) return Stage.NO_PARTICLES;
+        return Stage.NORMAL;
+    }
+
+    /**
+     * Goes back to normal without logging (used when the generator task stops)
+     */
+    public void reset() {
+        stage = Stage.NORMAL;
+    }
+
+    public Stage getStage() {
+        return stage;
+    }
+
+    public boolean isParticlesSuppressed() {
+        return stage.ordinal() >= Stage.NO_PARTICLES.ordinal();
+    }
+
+    public boolean isAccruing() {
+        return stage == Stage.ACCRUE;
+    }
+
+    /**
+     * Multiplier for the interval and output of a generator cycle, 1 unless stretched
+     */
+    public int getStretchFactor() {
+        return stage.ordinal() >= Stage.STRETCH.ordinal() ? stretchFactor : 1;
+    }
+}
@@ -2,17 +2,122 @@ package com.pallux.genpvp.managers;
 
 import com.pallux.genpvp.GenPvP;
 import com.pallux.genpvp.utils.PlayerData;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.util.*;
 import java.util.stream.Collectors;
 
 public class StatisticsManager {
 
+    // Stored players kept per leaderboard (the level rank placeholder looks at the top 1000)
+    private static final int LEADERBOARD_SIZE = 1000;
+
     private final GenPvP plugin;
+    // Stored players in the top of any leaderboard, as of the last refresh
+    private volatile Collection<PlayerData> rankedPlayers;
+    // Totals over every stored player, as of the last refresh
+    private volatile Map<String, Object> storedTotals;
+    private BukkitTask leaderboardTask;
 
     public StatisticsManager(GenPvP plugin) {
         this.plugin = plugin;
+        this.rankedPlayers = Collections.emptyList();
+        this.storedTotals = Collections.emptyMap();
+    }
+
+    /**
+     * Starts the async leaderboard refresh, players are only in memory while they are active
+     * so the leaderboards are built from storage
+     */
+    public void startLeaderboardTask() {
+        stopLeaderboardTask();
+
+        long interval = plugin.getConfigManager().getLeaderboardRefreshInterval() * 60L * 20L; // Convert minutes to ticks
+        // Each refresh is tracked, so disabling waits for it before closing storage
+        leaderboardTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> plugin.runAsync(this::refreshLeaderboards), 0L, interval);
+    }
+
+    public void stopLeaderboardTask() {
+        if (leaderboardTask != null) {
+            leaderboardTask.cancel();
+            leaderboardTask = null;
+        }
+    }
+
+    /**
+     * Reads every stored player once, keeping only the top of each leaderboard and the totals
+     */
+    public void refreshLeaderboards() {
+        List<Comparator<PlayerData>> orders = Arrays.asList(
+                Comparator.comparingInt(PlayerData::getKills),
+                Comparator.comparingInt(PlayerData::getLevel),
+                Comparator.comparingDouble(PlayerData::getMoneyCollected),
+                Comparator.comparingInt(PlayerData::getGemsCollected),
+                Comparator.comparingLong(PlayerData::getPlaytime)
+        );
+
+        // Lowest of each top list first, so it is the one dropped
+        List<PriorityQueue<PlayerData>> tops = new ArrayList<>();
+        for (Comparator<PlayerData> order : orders) {
+            tops.add(new PriorityQueue<>(order));
+        }
+
+        long[] totals = new long[7];
+        double[] totalMoney = new double[1];
+
+        plugin.getStorage().forEachPlayer(data -> {
+            for (PriorityQueue<PlayerData> top : tops) {
+                top.add(data);
+                if (top.size() > LEADERBOARD_SIZE) {
+                    top.poll();
+                }
+            }
+
+            totals[0] += data.getKills();
+            totals[1] += data.getDeaths();
+            totals[2] += data.getBlocksPlaced();
+            totals[3] += data.getBlocksBroken();
+            totals[4] += data.getGemsCollected();
+            totals[5] += data.getPlaytime();
+            totals[6]++;
+            totalMoney[0] += data.getMoneyCollected();
+        });
+
+        Map<UUID, PlayerData> ranked = new HashMap<>();
+        for (PriorityQueue<PlayerData> top : tops) {
+            for (PlayerData data : top) {
+                ranked.put(data.getUuid(), data);
+            }
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalKills", totals[0]);
+        stats.put("totalDeaths", totals[1]);
+        stats.put("totalBlocksPlaced", totals[2]);
+        stats.put("totalBlocksBroken", totals[3]);
+        stats.put("totalMoneyCollected", totalMoney[0]);
+        stats.put("totalGemsCollected", totals[4]);
+        stats.put("totalPlaytime", totals[5]);
+        stats.put("totalPlayers", totals[6]);
+
+        rankedPlayers = new ArrayList<>(ranked.values());
+        storedTotals = stats;
+    }
+
+    /**
+     * Stored leaderboard players, replaced by the players held in memory whose values are newer
+     */
+    private Collection<PlayerData> getRankedPlayers() {
+        Map<UUID, PlayerData> players = new HashMap<>();
+        for (PlayerData data : rankedPlayers) {
+            players.put(data.getUuid(), data);
+        }
+        for (PlayerData data : plugin.getDataManager().getAllPlayerData()) {
+            players.put(data.getUuid(), data);
+        }
+        return players.values();
     }
 
     /**
@@ -91,7 +196,7 @@ public class StatisticsManager {
     public List<Map.Entry<UUID, Integer>> getTopKills(int limit) {
         Map<UUID, Integer> killsMap = new HashMap<>();
 
-        for (PlayerData data : plugin.getDataManager().getAllPlayerData()) {
+        for (PlayerData data : getRankedPlayers()) {
             killsMap.put(data.getUuid(), data.getKills());
         }
 
@@ -107,7 +212,7 @@ public class StatisticsManager {
     public List<Map.Entry<UUID, Integer>> getTopLevels(int limit) {
         Map<UUID, Integer> levelMap = new HashMap<>();
 
-        for (PlayerData data : plugin.getDataManager().getAllPlayerData()) {
+        for (PlayerData data : getRankedPlayers()) {
             levelMap.put(data.getUuid(), data.getLevel());
         }
 
@@ -123,7 +228,7 @@ public class StatisticsManager {
     public List<Map.Entry<UUID, Double>> getTopMoneyCollected(int limit) {
         Map<UUID, Double> moneyMap = new HashMap<>();
 
-        for (PlayerData data : plugin.getDataManager().getAllPlayerData()) {
+        for (PlayerData data : getRankedPlayers()) {
             moneyMap.put(data.getUuid(), data.getMoneyCollected());
         }
 
@@ -139,7 +244,7 @@ public class StatisticsManager {
     public List<Map.Entry<UUID, Integer>> getTopGemsCollected(int limit) {
         Map<UUID, Integer> gemsMap = new HashMap<>();
 
-        for (PlayerData data : plugin.getDataManager().getAllPlayerData()) {
+        for (PlayerData data : getRankedPlayers()) {
             gemsMap.put(data.getUuid(), data.getGemsCollected());
         }
 
@@ -155,7 +260,7 @@ public class StatisticsManager {
     public List<Map.Entry<UUID, Long>> getTopPlaytime(int limit) {
         Map<UUID, Long> playtimeMap = new HashMap<>();
 
-        for (PlayerData data : plugin.getDataManager().getAllPlayerData()) {
+        for (PlayerData data : getRankedPlayers()) {
             playtimeMap.put(data.getUuid(), data.getPlaytime());
         }
 
@@ -212,53 +317,24 @@ public class StatisticsManager {
      * Resets all statistics for a player
      */
     public void resetStatistics(UUID uuid) {
-        PlayerData data = plugin.getDataManager().getPlayerData(uuid);
-
-        data.setKills(0);
-        data.setDeaths(0);
-        data.setBlocksPlaced(0);
-        data.setBlocksBroken(0);
-        data.setMoneyCollected(0);
-        data.setGemsCollected(0);
-        data.setPlaytime(0);
+        plugin.getDataManager().loadPlayerDataAsync(uuid).thenAccept(data -> {
+            data.setKills(0);
+            data.setDeaths(0);
+            data.setBlocksPlaced(0);
+            data.setBlocksBroken(0);
+            data.setMoneyCollected(0);
+            data.setGemsCollected(0);
+            data.setPlaytime(0);
+        });
     }
 
     /**
-     * Gets total server statistics
+     * Gets total server statistics (player totals as of the last leaderboard refresh)
      */
     public Map<String, Object> getServerStats() {
-        Map<String, Object> stats = new HashMap<>();
-
-        int totalKills = 0;
-        int totalDeaths = 0;
-        int totalBlocksPlaced = 0;
-        int totalBlocksBroken = 0;
-        double totalMoney = 0;
-        int totalGems = 0;
-        long totalPlaytime = 0;
-        int totalPlayers = 0;
-
-        for (PlayerData data : plugin.getDataManager().getAllPlayerData()) {
-            totalKills += data.getKills();
-            totalDeaths += data.getDeaths();
-            totalBlocksPlaced += data.getBlocksPlaced();
-            totalBlocksBroken += data.getBlocksBroken();
-            totalMoney += data.getMoneyCollected();
-            totalGems += data.getGemsCollected();
-            totalPlaytime += data.getPlaytime();
-            totalPlayers++;
-        }
-
-        stats.put("totalKills", totalKills);
-        stats.put("totalDeaths", totalDeaths);
-        stats.put("totalBlocksPlaced", totalBlocksPlaced);
-        stats.put("totalBlocksBroken", totalBlocksBroken);
-        stats.put("totalMoneyCollected", totalMoney);
-        stats.put("totalGemsCollected", totalGems);
-        stats.put("totalPlaytime", totalPlaytime);
-        stats.put("totalPlayers", totalPlayers);
+        Map<String, Object> stats = new HashMap<>(storedTotals);
         stats.put("totalGenerators", plugin.getDataManager().getAllGenerators().size());
 
         return stats;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,192 @@
+package com.pallux.genpvp.storage;
+
+import com.pallux.genpvp.GenPvP;
+import com.pallux.genpvp.managers.ConfigManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MySQL or MariaDB database that several servers can share.
+ * Connections are pooled (storage.mysql.pool-size), player rows are shared between the servers
+ * and generator and defense tables are per server when storage.mysql.server-id is set.
+ * storage.mysql.jdbc-url replaces the built URL, e.g. an embedded H2 database in MySQL mode for testing.
+ */
+public class MySqlStorage extends SqlStorage {
+
+    private static final long CONNECTION_TIMEOUT_SECONDS = 10;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final ConcurrentLinkedQueue<Connection> idle;
+    private Semaphore permits;
+    private String url;
+    private Properties properties;
+    private volatile boolean closed;
+
+    public MySqlStorage(GenPvP plugin) {
+        super(plugin, getBlockTablePrefix(plugin.getConfigManager()));
+        this.idle = new ConcurrentLinkedQueue<>();
+    }
+
+    private static String getBlockTablePrefix(ConfigManager config) {
+        String serverId = config.getMySqlServerId();
+        return serverId.isEmpty() ? "genpvp_" : "genpvp_" + serverId + "_";
+    }
+
+    @Override
+    public boolean init() {
+        ConfigManager config = plugin.getConfigManager();
+
+        url = config.getMySqlJdbcUrl();
+        if (url.isEmpty()) {
+            url = "jdbc:mysql://" + config.getMySqlHost() + ":" + config.getMySqlPort() + "/" + config.getMySqlDatabase()
+                    + "?useSSL=" + config.isMySqlUseSsl() + "&rewriteBatchedStatements=true&useCursorFetch=true";
+        }
+
+        properties = new Properties();
+        properties.setProperty("user", config.getMySqlUsername());
+        properties.setProperty("password", config.getMySqlPassword());
+
+        loadDriver();
+
+        int poolSize = Math.max(1, config.getMySqlPoolSize());
+        permits = new Semaphore(poolSize);
+
+        try {
+            for (int i = 0; i < poolSize; i++) {
+                idle.add(openConnection());
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Could not connect to the MySQL database!");
+            e.printStackTrace();
+            close();
+            return false;
+        }
+
+        Boolean empty = withConnection("Could not create the MySQL tables!", null, connection -> {
+            createSchema(connection);
+            return isEmpty(connection);
+        });
+
+        if (empty == null) {
+            close();
+            return false;
+        }
+
+        // Bring over what this server saved as YAML so far, everything on the first start
+        importYaml(empty);
+
+        return true;
+    }
+
+    /**
+     * JDBC 4 drivers register themselves, this only helps drivers that were loaded late
+     */
+    private void loadDriver() {
+        String driver = null;
+        if (url.startsWith("jdbc:mysql:")) {
+            driver = "com.mysql.cj.jdbc.Driver";
+        } else if (url.startsWith("jdbc:mariadb:")) {
+            driver = "org.mariadb.jdbc.Driver";
+        }
+
+        if (driver == null) return;
+
+        try {
+            Class.forName(driver);
+        } catch (ClassNotFoundException ignored) {
+            // DriverManager finds it through the service loader or reports the missing driver
+        }
+    }
+
+    private Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(url, properties);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+
+        // Connections in use are closed when they are released
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Could not close a MySQL connection: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "MySQL";
+    }
+
+    @Override
+    protected Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("MySQL storage is closed");
+        }
+
+        try {
+            if (!permits.tryAcquire(CONNECTION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new SQLException("No MySQL connection became free within " + CONNECTION_TIMEOUT_SECONDS + " seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a MySQL connection", e);
+        }
+
+        try {
+            Connection connection = idle.poll();
+
+            // Replace connections the server dropped (wait_timeout, restarts)
+            if (connection != null && !connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                closeQuietly(connection);
+                connection = null;
+            }
+
+            return connection != null ? connection : openConnection();
+        } catch (SQLException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    protected void releaseConnection(Connection connection) {
+        if (closed) {
+            closeQuietly(connection);
+        } else {
+            idle.add(connection);
+        }
+        permits.release();
+    }
+
+    @Override
+    protected String getUpsertSql(String table, String[] keyColumns, String[] valueColumns) {
+        StringJoiner updates = new StringJoiner(", ");
+        for (String column : valueColumns) {
+            updates.add(column + " = VALUES(" + column + ")");
+        }
+
+        return "INSERT INTO " + table + " " + getInsertColumns(keyColumns, valueColumns)
+                + " ON DUPLICATE KEY UPDATE " + updates;
+    }
+
+    @Override
+    protected String getLockingReadSuffix() {
+        return " FOR UPDATE";
+    }
+}
@@ -0,0 +1,737 @@
+package com.pallux.genpvp.storage;
+
+import com.pallux.genpvp.GenPvP;
+import com.pallux.genpvp.managers.BoosterManager;
+import com.pallux.genpvp.managers.CollectorManager;
+import com.pallux.genpvp.managers.DataManager;
+import com.pallux.genpvp.managers.DefenseDataManager;
+import com.pallux.genpvp.utils.PlayerData;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.sql.*;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Shared JDBC code for the SQL backends.
+ * Every statement is prepared, saves are batched upserts inside one transaction,
+ * players are looked up by their UUID key and blocks by their position key.
+ * Player rows carry a version so servers sharing a database merge their changes instead of overwriting them.
+ */
+public abstract class SqlStorage implements StorageBackend {
+
+    private static final String[] PLAYER_COLUMNS = {
+            "level", "experience", "gems", "generators_placed", "kills", "deaths", "blocks_placed",
+            "blocks_broken", "money_collected", "gems_collected", "playtime", "first_join", "last_join"
+    };
+    private static final String[] POSITION_COLUMNS = {"world", "x", "y", "z"};
+    private static final String[] GENERATOR_COLUMNS = {
+            "chunk_x", "chunk_z", "tier", "owner", "count", "stored_money", "stored_gems", "stored_items", "parked_since",
+            "parked_reason"
+    };
+    private static final String[] DEFENSE_COLUMNS = {"tier", "current_hearts", "owner"};
+    private static final String[] COLLECTOR_COLUMNS = {"owner", "money", "gems"};
+
+    protected final GenPvP plugin;
+    protected final String playersTable;
+    protected final String generatorsTable;
+    protected final String defensesTable;
+    protected final String collectorsTable;
+    protected final String boostersTable;
+
+    /**
+     * @param blockTablePrefix prefix of the generator, defense, collector and booster tables,
+     *                         players are always in genpvp_players
+     */
+    protected SqlStorage(GenPvP plugin, String blockTablePrefix) {
+        this.plugin = plugin;
+        this.playersTable = "genpvp_players";
+        this.generatorsTable = blockTablePrefix + "generators";
+        this.defensesTable = blockTablePrefix + "defenses";
+        this.collectorsTable = blockTablePrefix + "collectors";
+        this.boostersTable = blockTablePrefix + "boosters";
+    }
+
+    /**
+     * Gets a connection for one unit of work, handed back with releaseConnection
+     */
+    protected abstract Connection getConnection() throws SQLException;
+
+    protected abstract void releaseConnection(Connection connection);
+
+    /**
+     * Insert that updates the value columns when a row with the same key already exists
+     */
+    protected abstract String getUpsertSql(String table, String[] keyColumns, String[] valueColumns);
+
+    /**
+     * Appended to the select that reads a conflicting player row, locks it where the database supports it
+     */
+    protected String getLockingReadSuffix() {
+        return "";
+    }
+
+    /**
+     * Logger for storage errors and migration progress
+     */
+    protected Logger getLogger() {
+        return plugin.getLogger();
+    }
+
+    /**
+     * Creates the tables
+     */
+    protected void createSchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + playersTable + " ("
+                    + "uuid VARCHAR(36) NOT NULL PRIMARY KEY, "
+                    + "level INT NOT NULL, experience INT NOT NULL, gems INT NOT NULL, "
+                    + "generators_placed INT NOT NULL, kills INT NOT NULL, deaths INT NOT NULL, "
+                    + "blocks_placed INT NOT NULL, blocks_broken INT NOT NULL, money_collected DOUBLE NOT NULL, "
+                    + "gems_collected INT NOT NULL, playtime BIGINT NOT NULL, first_join BIGINT NOT NULL, "
+                    + "last_join BIGINT NOT NULL, "
+                    + "version BIGINT NOT NULL DEFAULT 0)");
+
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + generatorsTable + " ("
+                    + "world VARCHAR(64) NOT NULL, x INT NOT NULL, y INT NOT NULL, z INT NOT NULL, "
+                    + "chunk_x INT NOT NULL, chunk_z INT NOT NULL, tier INT NOT NULL, owner VARCHAR(36), "
+                    + "count INT NOT NULL, stored_money BIGINT NOT NULL, stored_gems BIGINT NOT NULL, "
+                    + "stored_items INT NOT NULL, parked_since BIGINT NOT NULL, parked_reason VARCHAR(16), "
+                    + "PRIMARY KEY (world, x, y, z))");
+
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + defensesTable + " ("
+                    + "world VARCHAR(64) NOT NULL, x INT NOT NULL, y INT NOT NULL, z INT NOT NULL, "
+                    + "tier INT NOT NULL, current_hearts INT NOT NULL, owner VARCHAR(36), "
+                    + "PRIMARY KEY (world, x, y, z))");
+
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + collectorsTable + " ("
+                    + "world VARCHAR(64) NOT NULL, x INT NOT NULL, y INT NOT NULL, z INT NOT NULL, "
+                    + "owner VARCHAR(36), money BIGINT NOT NULL, gems BIGINT NOT NULL, "
+                    + "PRIMARY KEY (world, x, y, z))");
+
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + boostersTable + " ("
+                    + "owner VARCHAR(36), type VARCHAR(16) NOT NULL, multiplier DOUBLE NOT NULL, "
+                    + "expires_at BIGINT NOT NULL)");
+        }
+
+        // Databases created before rows were versioned
+        addColumnIfMissing(connection, playersTable, "version", "BIGINT NOT NULL DEFAULT 0");
+        // Generators parked before the reason was stored count as unloaded
+        addColumnIfMissing(connection, generatorsTable, "parked_reason", "VARCHAR(16)");
+    }
+
+    private void addColumnIfMissing(Connection connection, String table, String column, String definition) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String name : new String[]{table, table.toUpperCase()}) {
+            try (ResultSet result = metaData.getColumns(connection.getCatalog(), null, name, null)) {
+                while (result.next()) {
+                    if (column.equalsIgnoreCase(result.getString("COLUMN_NAME"))) return;
+                }
+            }
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        }
+    }
+
+    /**
+     * Checks if the database has no data yet (used to migrate YAML data)
+     */
+    protected boolean isEmpty(Connection connection) throws SQLException {
+        for (String table : new String[]{playersTable, generatorsTable, defensesTable}) {
+            if (!isTableEmpty(connection, table)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isTableEmpty(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT 1 FROM " + table + " LIMIT 1")) {
+            return !result.next();
+        }
+    }
+
+    /**
+     * Copies what is stored as YAML into this backend. Players, generators and defense blocks only come over
+     * when the database is new, collectors and boosters whenever their table is still empty
+     * (databases made before they were stored here), their files are renamed once imported.
+     */
+    protected void importYaml(boolean empty) {
+        YamlStorage yaml = new YamlStorage(plugin);
+        if (!yaml.init()) return;
+
+        importYamlCollectors(yaml);
+        importYamlBoosters(yaml);
+
+        if (!empty || !yaml.hasData()) return;
+
+        getLogger().info("Migrating YAML data to " + getName() + "...");
+
+        List<PlayerData> players = new ArrayList<>();
+        yaml.forEachPlayer(players::add);
+        Map<Location, DataManager.GeneratorData> generators = yaml.loadGenerators();
+        Map<Location, DefenseDataManager.DefenseBlockData> defenses = yaml.loadDefenseBlocks();
+
+        savePlayers(players);
+        saveGenerators(generators, Collections.emptyList());
+        saveDefenseBlocks(defenses, Collections.emptyList());
+
+        getLogger().info("Migrated " + players.size() + " players, " + generators.size()
+                + " generators and " + defenses.size() + " defense blocks to " + getName() + "!");
+    }
+
+    private void importYamlCollectors(YamlStorage yaml) {
+        Map<Location, CollectorManager.CollectorData> collectors = yaml.loadCollectors();
+        if (collectors.isEmpty() || !isTableEmpty(collectorsTable)) return;
+
+        if (saveCollectors(collectors, Collections.emptyList())) {
+            yaml.archive("collectors.yml");
+            getLogger().info("Migrated " + collectors.size() + " collectors to " + getName() + "!");
+        }
+    }
+
+    private void importYamlBoosters(YamlStorage yaml) {
+        List<BoosterManager.Booster> boosters = yaml.loadBoosters();
+        if (boosters.isEmpty() || !isTableEmpty(boostersTable)) return;
+
+        if (saveBoosters(boosters)) {
+            yaml.archive("boosters.yml");
+            getLogger().info("Migrated " + boosters.size() + " boosters to " + getName() + "!");
+        }
+    }
+
+    private boolean isTableEmpty(String table) {
+        return withConnection("Could not read " + table + "!", false, connection -> isTableEmpty(connection, table));
+    }
+
+    @Override
+    public boolean supportsPartialSaves() {
+        return true;
+    }
+
+    @Override
+    public PlayerData loadPlayer(UUID uuid) {
+        return withConnection("Could not load player data for " + uuid, null, connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT * FROM " + playersTable + " WHERE uuid = ?")) {
+                statement.setString(1, uuid.toString());
+
+                try (ResultSet result = statement.executeQuery()) {
+                    return result.next() ? readPlayer(uuid, result) : null;
+                }
+            }
+        });
+    }
+
+    @Override
+    public void forEachPlayer(Consumer<PlayerData> action) {
+        withConnection("Could not load player data!", null, connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM " + playersTable)) {
+                // Stream the rows instead of buffering the whole table
+                statement.setFetchSize(500);
+
+                try (ResultSet result = statement.executeQuery()) {
+                    while (result.next()) {
+                        try {
+                            action.accept(readPlayer(UUID.fromString(result.getString("uuid")), result));
+                        } catch (IllegalArgumentException e) {
+                            getLogger().warning("Invalid UUID in player data: " + result.getString("uuid"));
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private PlayerData readPlayer(UUID uuid, ResultSet result) throws SQLException {
+        PlayerData data = new PlayerData(uuid);
+        data.setLevel(result.getInt("level"));
+        data.setExperience(result.getInt("experience"));
+        data.setGems(result.getInt("gems"));
+        data.setGeneratorsPlaced(result.getInt("generators_placed"));
+        data.setKills(result.getInt("kills"));
+        data.setDeaths(result.getInt("deaths"));
+        data.setBlocksPlaced(result.getInt("blocks_placed"));
+        data.setBlocksBroken(result.getInt("blocks_broken"));
+        data.setMoneyCollected(result.getDouble("money_collected"));
+        data.setGemsCollected(result.getInt("gems_collected"));
+        data.setPlaytime(result.getLong("playtime"));
+        data.setFirstJoin(result.getLong("first_join"));
+        data.setLastJoin(result.getLong("last_join"));
+        data.setVersion(result.getLong("version"));
+        data.setSynced(data.copy());
+        return data;
+    }
+
+    @Override
+    public boolean savePlayer(PlayerData data) {
+        return savePlayers(Collections.singletonList(data));
+    }
+
+    @Override
+    public boolean savePlayers(Collection<PlayerData> players) {
+        if (players.isEmpty()) return true;
+
+        // Snapshots owned by the caller, only their sync state is changed and only after the commit
+        List<PlayerData> snapshots = new ArrayList<>(players);
+
+        // What ended up in each row
+        PlayerData[] written = new PlayerData[snapshots.size()];
+        long[] versions = new long[snapshots.size()];
+
+        boolean saved = withTransaction("Could not save player data!", connection -> {
+            List<Integer> conflicts = new ArrayList<>();
+
+            // Rows nobody else touched since we read them. Not batched, drivers may answer a batch with
+            // SUCCESS_NO_INFO, and only an update count of exactly 1 confirms the version matched
+            try (PreparedStatement statement = connection.prepareStatement(getUpdatePlayerSql())) {
+                for (int index = 0; index < snapshots.size(); index++) {
+                    long version = snapshots.get(index).getVersion();
+                    if (version == 0) {
+                        conflicts.add(index);
+                        continue;
+                    }
+
+                    setPlayerUpdate(statement, snapshots.get(index), version);
+                    if (statement.executeUpdate() != 1) {
+                        conflicts.add(index);
+                        continue;
+                    }
+
+                    written[index] = snapshots.get(index);
+                    versions[index] = version + 1;
+                }
+            }
+
+            // New rows, or rows another server saved in the meantime
+            for (int index : conflicts) {
+                PlayerData local = snapshots.get(index);
+                PlayerData stored = selectPlayerForUpdate(connection, local.getUuid());
+
+                if (stored == null) {
+                    insertPlayer(connection, local);
+                    written[index] = local;
+                    versions[index] = 1;
+                    continue;
+                }
+
+                PlayerData base = local.getSynced();
+                PlayerData result = base != null ? mergePlayer(stored, base, local) : local;
+
+                try (PreparedStatement statement = connection.prepareStatement(getUpdatePlayerSql())) {
+                    setPlayerUpdate(statement, result, stored.getVersion());
+                    if (statement.executeUpdate() != 1) {
+                        throw new SQLException("Player " + local.getUuid() + " was changed during the save");
+                    }
+                }
+
+                written[index] = result;
+                versions[index] = stored.getVersion() + 1;
+            }
+            return null;
+        });
+
+        if (!saved) return false;
+
+        // The difference between the written row and the snapshot is what other servers added
+        for (int index = 0; index < snapshots.size(); index++) {
+            PlayerData data = snapshots.get(index);
+            data.setVersion(versions[index]);
+            data.setSynced(written[index]);
+        }
+        return true;
+    }
+
+    private String getUpdatePlayerSql() {
+        StringJoiner columns = new StringJoiner(", ");
+        for (String column : PLAYER_COLUMNS) {
+            columns.add(column + " = ?");
+        }
+        return "UPDATE " + playersTable + " SET " + columns + ", version = ? WHERE uuid = ? AND version = ?";
+    }
+
+    /**
+     * Sets the values, the new version, the UUID and the expected version of an update
+     */
+    private void setPlayerUpdate(PreparedStatement statement, PlayerData data, long version) throws SQLException {
+        int i = setPlayerValues(statement, 1, data);
+        statement.setLong(i++, version + 1);
+        statement.setString(i++, data.getUuid().toString());
+        statement.setLong(i, version);
+    }
+
+    private void insertPlayer(Connection connection, PlayerData data) throws SQLException {
+        String[] valueColumns = Arrays.copyOf(PLAYER_COLUMNS, PLAYER_COLUMNS.length + 1);
+        valueColumns[PLAYER_COLUMNS.length] = "version";
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO " + playersTable + " " + getInsertColumns(new String[]{"uuid"}, valueColumns))) {
+            statement.setString(1, data.getUuid().toString());
+            int i = setPlayerValues(statement, 2, data);
+            statement.setLong(i, 1);
+            statement.executeUpdate();
+        }
+    }
+
+    private PlayerData selectPlayerForUpdate(Connection connection, UUID uuid) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT * FROM " + playersTable + " WHERE uuid = ?" + getLockingReadSuffix())) {
+            statement.setString(1, uuid.toString());
+
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() ? readPlayer(uuid, result) : null;
+            }
+        }
+    }
+
+    /**
+     * Sets the PLAYER_COLUMNS parameters from index and returns the next parameter index
+     */
+    private static int setPlayerValues(PreparedStatement statement, int index, PlayerData data) throws SQLException {
+        int i = index;
+        statement.setInt(i++, data.getLevel());
+        statement.setInt(i++, data.getExperience());
+        statement.setInt(i++, data.getGems());
+        statement.setInt(i++, data.getGeneratorsPlaced());
+        statement.setInt(i++, data.getKills());
+        statement.setInt(i++, data.getDeaths());
+        statement.setInt(i++, data.getBlocksPlaced());
+        statement.setInt(i++, data.getBlocksBroken());
+        statement.setDouble(i++, data.getMoneyCollected());
+        statement.setInt(i++, data.getGemsCollected());
+        statement.setLong(i++, data.getPlaytime());
+        statement.setLong(i++, data.getFirstJoin());
+        statement.setLong(i++, data.getLastJoin());
+        return i;
+    }
+
+    /**
+     * Our changes since base applied on top of the stored row: counters become stored + (ours - base),
+     * and join times keep the earliest and latest
+     */
+    private static PlayerData mergePlayer(PlayerData stored, PlayerData base, PlayerData local) {
+        PlayerData result = stored.copy();
+        result.addDifference(local, base);
+        result.setFirstJoin(Math.min(stored.getFirstJoin(), local.getFirstJoin()));
+        result.setLastJoin(Math.max(stored.getLastJoin(), local.getLastJoin()));
+        return result;
+    }
+
+    @Override
+    public Map<Location, DataManager.GeneratorData> loadGenerators() {
+        Map<Location, DataManager.GeneratorData> generators = new HashMap<>();
+
+        withConnection("Could not load generator locations!", null, connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM " + generatorsTable);
+                 ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    Location location = readLocation(result);
+                    if (location == null) continue;
+
+                    DataManager.GeneratorData data = new DataManager.GeneratorData(result.getInt("tier"),
+                            readOwner(result));
+                    data.store(result.getLong("stored_money"), result.getLong("stored_gems"),
+                            result.getInt("stored_items"));
+                    data.park(result.getLong("parked_since"), readParkReason(result.getString("parked_reason")));
+                    data.setCount(result.getInt("count"));
+                    generators.put(location, data);
+                }
+            }
+            return null;
+        });
+
+        return generators;
+    }
+
+    private DataManager.ParkReason readParkReason(String reason) {
+        if (reason == null) return DataManager.ParkReason.UNLOADED;
+        try {
+            return DataManager.ParkReason.valueOf(reason);
+        } catch (IllegalArgumentException e) {
+            getLogger().warning("Invalid park reason in stored data: " + reason);
+            return DataManager.ParkReason.UNLOADED;
+        }
+    }
+
+    @Override
+    public boolean saveGenerators(Map<Location, DataManager.GeneratorData> generators, Collection<Location> removed) {
+        if (generators.isEmpty() && removed.isEmpty()) return true;
+
+        return withTransaction("Could not save generator locations!", connection -> {
+            deletePositions(connection, generatorsTable, removed);
+
+            try (PreparedStatement statement = connection.prepareStatement(
+                    getUpsertSql(generatorsTable, POSITION_COLUMNS, GENERATOR_COLUMNS))) {
+                for (Map.Entry<Location, DataManager.GeneratorData> entry : generators.entrySet()) {
+                    Location location = entry.getKey();
+                    DataManager.GeneratorData data = entry.getValue();
+
+                    int i = setPosition(statement, location);
+                    statement.setInt(i++, location.getBlockX() >> 4);
+                    statement.setInt(i++, location.getBlockZ() >> 4);
+                    statement.setInt(i++, data.getTier());
+                    statement.setString(i++, data.getOwner() != null ? data.getOwner().toString() : null);
+                    statement.setInt(i++, data.getCount());
+                    statement.setLong(i++, data.getStoredMoney());
+                    statement.setLong(i++, data.getStoredGems());
+                    statement.setInt(i++, data.getStoredItems());
+                    statement.setLong(i++, data.getParkedSince());
+                    statement.setString(i, data.getParkedSince() > 0 ? data.getParkReason().name() : null);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Map<Location, DefenseDataManager.DefenseBlockData> loadDefenseBlocks() {
+        Map<Location, DefenseDataManager.DefenseBlockData> defenses = new HashMap<>();
+
+        withConnection("Could not load defense blocks!", null, connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM " + defensesTable);
+                 ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    Location location = readLocation(result);
+                    if (location == null) continue;
+
+                    defenses.put(location, new DefenseDataManager.DefenseBlockData(result.getInt("tier"),
+                            result.getInt("current_hearts"), readOwner(result)));
+                }
+            }
+            return null;
+        });
+
+        return defenses;
+    }
+
+    @Override
+    public boolean saveDefenseBlocks(Map<Location, DefenseDataManager.DefenseBlockData> defenses, Collection<Location> removed) {
+        if (defenses.isEmpty() && removed.isEmpty()) return true;
+
+        return withTransaction("Could not save defense blocks!", connection -> {
+            deletePositions(connection, defensesTable, removed);
+
+            try (PreparedStatement statement = connection.prepareStatement(
+                    getUpsertSql(defensesTable, POSITION_COLUMNS, DEFENSE_COLUMNS))) {
+                for (Map.Entry<Location, DefenseDataManager.DefenseBlockData> entry : defenses.entrySet()) {
+                    DefenseDataManager.DefenseBlockData data = entry.getValue();
+
+                    int i = setPosition(statement, entry.getKey());
+                    statement.setInt(i++, data.getTier());
+                    statement.setInt(i++, data.getCurrentHearts());
+                    statement.setString(i, data.getOwner() != null ? data.getOwner().toString() : null);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Map<Location, CollectorManager.CollectorData> loadCollectors() {
+        Map<Location, CollectorManager.CollectorData> collectors = new HashMap<>();
+
+        withConnection("Could not load collectors!", null, connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM " + collectorsTable);
+                 ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    Location location = readLocation(result);
+                    if (location == null) continue;
+
+                    CollectorManager.CollectorData data = new CollectorManager.CollectorData(location, readOwner(result));
+                    data.add(result.getLong("money"), result.getLong("gems"));
+                    collectors.put(location, data);
+                }
+            }
+            return null;
+        });
+
+        return collectors;
+    }
+
+    @Override
+    public boolean saveCollectors(Map<Location, CollectorManager.CollectorData> collectors, Collection<Location> removed) {
+        if (collectors.isEmpty() && removed.isEmpty()) return true;
+
+        return withTransaction("Could not save collectors!", connection -> {
+            deletePositions(connection, collectorsTable, removed);
+
+            try (PreparedStatement statement = connection.prepareStatement(
+                    getUpsertSql(collectorsTable, POSITION_COLUMNS, COLLECTOR_COLUMNS))) {
+                for (Map.Entry<Location, CollectorManager.CollectorData> entry : collectors.entrySet()) {
+                    CollectorManager.CollectorData data = entry.getValue();
+
+                    int i = setPosition(statement, entry.getKey());
+                    statement.setString(i++, data.getOwner() != null ? data.getOwner().toString() : null);
+                    statement.setLong(i++, data.getMoney());
+                    statement.setLong(i, data.getGems());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public List<BoosterManager.Booster> loadBoosters() {
+        List<BoosterManager.Booster> boosters = new ArrayList<>();
+
+        withConnection("Could not load boosters!", null, connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM " + boostersTable);
+                 ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    try {
+                        String owner = result.getString("owner");
+                        boosters.add(new BoosterManager.Booster(owner != null ? UUID.fromString(owner) : null,
+                                BoosterManager.Type.valueOf(result.getString("type")),
+                                result.getDouble("multiplier"), result.getLong("expires_at")));
+                    } catch (IllegalArgumentException e) {
+                        getLogger().warning("Invalid booster in stored data: " + result.getString("type"));
+                    }
+                }
+            }
+            return null;
+        });
+
+        return boosters;
+    }
+
+    @Override
+    public boolean saveBoosters(Collection<BoosterManager.Booster> boosters) {
+        // Only a handful at a time, replaced as a whole
+        return withTransaction("Could not save boosters!", connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM " + boostersTable);
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO " + boostersTable + " (owner, type, multiplier, expires_at) VALUES (?, ?, ?, ?)")) {
+                for (BoosterManager.Booster booster : boosters) {
+                    statement.setString(1, booster.getOwner() != null ? booster.getOwner().toString() : null);
+                    statement.setString(2, booster.getType().name());
+                    statement.setDouble(3, booster.getMultiplier());
+                    statement.setLong(4, booster.getExpiresAt());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    private void deletePositions(Connection connection, String table, Collection<Location> removed) throws SQLException {
+        if (removed.isEmpty()) return;
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                "DELETE FROM " + table + " WHERE world = ? AND x = ? AND y = ? AND z = ?")) {
+            for (Location location : removed) {
+                setPosition(statement, location);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Sets the world, x, y and z parameters and returns the next parameter index
+     */
+    private static int setPosition(PreparedStatement statement, Location location) throws SQLException {
+        statement.setString(1, location.getWorld().getName());
+        statement.setInt(2, location.getBlockX());
+        statement.setInt(3, location.getBlockY());
+        statement.setInt(4, location.getBlockZ());
+        return 5;
+    }
+
+    /**
+     * Reads the block position of a row, null if its world isn't loaded
+     */
+    private static Location readLocation(ResultSet result) throws SQLException {
+        World world = Bukkit.getWorld(result.getString("world"));
+        if (world == null) return null;
+
+        return new Location(world, result.getInt("x"), result.getInt("y"), result.getInt("z"));
+    }
+
+    private UUID readOwner(ResultSet result) throws SQLException {
+        String owner = result.getString("owner");
+        if (owner == null || owner.isEmpty()) return null;
+
+        try {
+            return UUID.fromString(owner);
+        } catch (IllegalArgumentException e) {
+            getLogger().warning("Invalid owner UUID in stored data: " + owner);
+            return null;
+        }
+    }
+
+    /**
+     * Runs work on a connection, logs the error and returns fallback if it fails
+     */
+    protected <T> T withConnection(String error, T fallback, SqlWork<T> work) {
+        Connection connection = null;
+        try {
+            connection = getConnection();
+            return work.run(connection);
+        } catch (SQLException e) {
+            getLogger().severe(error);
+            e.printStackTrace();
+            return fallback;
+        } finally {
+            if (connection != null) {
+                releaseConnection(connection);
+            }
+        }
+    }
+
+    /**
+     * Runs work in one transaction, rolled back if it fails. Returns true if it was committed.
+     */
+    protected boolean withTransaction(String error, SqlWork<?> work) {
+        return withConnection(error, false, connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                work.run(connection);
+                connection.commit();
+                return true;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    /**
+     * Builds "(a, b, c) VALUES (?, ?, ?)" for an insert
+     */
+    protected static String getInsertColumns(String[] keyColumns, String[] valueColumns) {
+        StringJoiner columns = new StringJoiner(", ", "(", ")");
+        StringJoiner values = new StringJoiner(", ", "(", ")");
+        for (String column : keyColumns) {
+            columns.add(column);
+            values.add("?");
+        }
+        for (String column : valueColumns) {
+            columns.add(column);
+            values.add("?");
+        }
+        return columns + " VALUES " + values;
+    }
+
+    @FunctionalInterface
+    protected interface SqlWork<T> {
+        T run(Connection connection) throws SQLException;
+    }
+}
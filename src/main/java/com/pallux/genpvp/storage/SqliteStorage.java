@@ -0,0 +1,107 @@
+package com.pallux.genpvp.storage;
+
+import com.pallux.genpvp.GenPvP;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.StringJoiner;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Embedded SQLite database in the data folder (the driver ships with the server).
+ * One connection is shared, the lock keeps the auto-save thread and the server thread apart.
+ */
+public class SqliteStorage extends SqlStorage {
+
+    private final ReentrantLock lock;
+    private Connection connection;
+
+    public SqliteStorage(GenPvP plugin) {
+        super(plugin, "genpvp_");
+        this.lock = new ReentrantLock();
+    }
+
+    @Override
+    public boolean init() {
+        File dataFolder = new File(plugin.getDataFolder(), "data");
+        if (!dataFolder.exists()) {
+            dataFolder.mkdirs();
+        }
+
+        File databaseFile = new File(dataFolder, plugin.getConfigManager().getSqliteFile());
+
+        boolean empty;
+        try {
+            Class.forName("org.sqlite.JDBC");
+            connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+
+            try (Statement statement = connection.createStatement()) {
+                // Write-ahead logging, readers don't wait for the auto-save
+                statement.execute("PRAGMA journal_mode=WAL");
+                statement.execute("PRAGMA synchronous=NORMAL");
+            }
+
+            createSchema(connection);
+            empty = isEmpty(connection);
+        } catch (ClassNotFoundException | SQLException e) {
+            plugin.getLogger().severe("Could not open SQLite database " + databaseFile.getName() + "!");
+            e.printStackTrace();
+            return false;
+        }
+
+        // Bring over what was saved as YAML so far, everything on the first start
+        importYaml(empty);
+
+        return true;
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (connection != null) {
+                connection.close();
+                connection = null;
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Could not close SQLite database!");
+            e.printStackTrace();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "SQLite";
+    }
+
+    @Override
+    protected Connection getConnection() throws SQLException {
+        lock.lock();
+        if (connection == null) {
+            lock.unlock();
+            throw new SQLException("SQLite database is closed");
+        }
+        return connection;
+    }
+
+    @Override
+    protected void releaseConnection(Connection connection) {
+        lock.unlock();
+    }
+
+    @Override
+    protected String getUpsertSql(String table, String[] keyColumns, String[] valueColumns) {
+        StringJoiner updates = new StringJoiner(", ");
+        for (String column : valueColumns) {
+            updates.add(column + " = excluded." + column);
+        }
+
+        return "INSERT INTO " + table + " " + getInsertColumns(keyColumns, valueColumns)
+                + " ON CONFLICT (" + String.join(", ", keyColumns) + ") DO UPDATE SET " + updates;
+    }
+}
@@ -0,0 +1,109 @@
+package com.pallux.genpvp.storage;
+
+import com.pallux.genpvp.managers.BoosterManager;
+import com.pallux.genpvp.managers.CollectorManager;
+import com.pallux.genpvp.managers.DataManager;
+import com.pallux.genpvp.managers.DefenseDataManager;
+import com.pallux.genpvp.utils.PlayerData;
+import org.bukkit.Location;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Where the data managers, CollectorManager and BoosterManager keep their data (storage.type in config.yml).
+ * The managers hold everything in memory, a backend only loads and writes it.
+ */
+public interface StorageBackend {
+
+    /**
+     * Opens files or connections and creates the schema, returns false if the storage can't be used
+     */
+    boolean init();
+
+    /**
+     * Releases files or connections, called after the final save
+     */
+    void close();
+
+    /**
+     * Display name for log messages
+     */
+    String getName();
+
+    /**
+     * True if saveGenerators, saveDefenseBlocks and saveCollectors can be given only the changed entries,
+     * false if they rewrite everything and need the full map
+     */
+    boolean supportsPartialSaves();
+
+    // Players
+
+    /**
+     * Loads one player, null if the player has no saved data
+     */
+    PlayerData loadPlayer(UUID uuid);
+
+    /**
+     * Reads every stored player one at a time, without keeping them all in memory
+     */
+    void forEachPlayer(Consumer<PlayerData> action);
+
+    /**
+     * Saves one player, returns false if it could not be written.
+     * The data is a snapshot owned by the caller: after a successful save its version and synced hold
+     * the row that was written, its values are never changed.
+     */
+    boolean savePlayer(PlayerData data);
+
+    /**
+     * Saves several player snapshots at once (one transaction where the backend supports it),
+     * returns false if any failed
+     */
+    boolean savePlayers(Collection<PlayerData> players);
+
+    // Generators
+
+    /**
+     * Loads every generator in a loaded world
+     */
+    Map<Location, DataManager.GeneratorData> loadGenerators();
+
+    /**
+     * Writes the given generators and deletes the removed ones, returns false if nothing was written
+     */
+    boolean saveGenerators(Map<Location, DataManager.GeneratorData> generators, Collection<Location> removed);
+
+    // Defense blocks
+
+    Map<Location, DefenseDataManager.DefenseBlockData> loadDefenseBlocks();
+
+    /**
+     * Writes the given defense blocks and deletes the removed ones, returns false if nothing was written
+     */
+    boolean saveDefenseBlocks(Map<Location, DefenseDataManager.DefenseBlockData> defenses, Collection<Location> removed);
+
+    // Chunk collectors
+
+    Map<Location, CollectorManager.CollectorData> loadCollectors();
+
+    /**
+     * Writes the given collectors and deletes the removed ones, returns false if nothing was written
+     */
+    boolean saveCollectors(Map<Location, CollectorManager.CollectorData> collectors, Collection<Location> removed);
+
+    // Boosters
+
+    /**
+     * Loads every saved booster, including ones that ran out while the server was down
+     */
+    List<BoosterManager.Booster> loadBoosters();
+
+    /**
+     * Replaces the saved boosters with the given ones, returns false if they could not be written
+     */
+    boolean saveBoosters(Collection<BoosterManager.Booster> boosters);
+}
@@ -0,0 +1,501 @@
+package com.pallux.genpvp.storage;
+
+import com.pallux.genpvp.GenPvP;
+import com.pallux.genpvp.managers.BoosterManager;
+import com.pallux.genpvp.managers.CollectorManager;
+import com.pallux.genpvp.managers.DataManager;
+import com.pallux.genpvp.managers.DefenseDataManager;
+import com.pallux.genpvp.utils.PlayerData;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * YAML files in the data folder: one file per player, generators.yml, defenses.yml, collectors.yml and boosters.yml.
+ * Everything but players is always written as a whole file.
+ */
+public class YamlStorage implements StorageBackend {
+
+    private final GenPvP plugin;
+    private File playersFolder;
+    private File generatorsFile;
+    private File defenseFile;
+    private File collectorsFile;
+    private File boostersFile;
+
+    public YamlStorage(GenPvP plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean init() {
+        File dataFolder = new File(plugin.getDataFolder(), "data");
+        if (!dataFolder.exists()) {
+            dataFolder.mkdirs();
+        }
+
+        playersFolder = new File(dataFolder, "players");
+        if (!playersFolder.exists()) {
+            playersFolder.mkdirs();
+        }
+
+        generatorsFile = createFile(dataFolder, "generators.yml");
+        defenseFile = createFile(dataFolder, "defenses.yml");
+        collectorsFile = createFile(dataFolder, "collectors.yml");
+        boostersFile = createFile(dataFolder, "boosters.yml");
+        return true;
+    }
+
+    private File createFile(File folder, String name) {
+        File file = new File(folder, name);
+        if (!file.exists()) {
+            try {
+                file.createNewFile();
+            } catch (IOException e) {
+                plugin.getLogger().severe("Could not create " + name + "!");
+                e.printStackTrace();
+            }
+        }
+        return file;
+    }
+
+    @Override
+    public void close() {
+        // Nothing is kept open
+    }
+
+    @Override
+    public String getName() {
+        return "YAML";
+    }
+
+    @Override
+    public boolean supportsPartialSaves() {
+        // generators.yml, defenses.yml and collectors.yml are written as a whole
+        return false;
+    }
+
+    /**
+     * Renames a data file once another backend imported it, so the same data is never imported twice
+     */
+    public void archive(String fileName) {
+        File file = new File(new File(plugin.getDataFolder(), "data"), fileName);
+        if (file.exists() && !file.renameTo(new File(file.getParentFile(), fileName + ".migrated"))) {
+            plugin.getLogger().warning("Could not rename " + fileName + " after migrating it");
+        }
+    }
+
+    /**
+     * Checks if there is any YAML data to migrate
+     */
+    public boolean hasData() {
+        File[] files = playersFolder.listFiles((dir, name) -> name.endsWith(".yml"));
+        return (files != null && files.length > 0) || generatorsFile.length() > 0 || defenseFile.length() > 0;
+    }
+
+    @Override
+    public PlayerData loadPlayer(UUID uuid) {
+        File playerFile = new File(playersFolder, uuid.toString() + ".yml");
+        if (!playerFile.exists()) return null;
+
+        FileConfiguration config = YamlConfiguration.loadConfiguration(playerFile);
+        PlayerData data = new PlayerData(uuid);
+
+        data.setLevel(config.getInt("level", plugin.getConfigManager().getStartingLevel()));
+        data.setExperience(config.getInt("experience", 0));
+        data.setGems(config.getInt("gems", 0));
+        data.setGeneratorsPlaced(config.getInt("generators-placed", 0));
+
+        // Load statistics
+        data.setKills(config.getInt("stats.kills", 0));
+        data.setDeaths(config.getInt("stats.deaths", 0));
+        data.setBlocksPlaced(config.getInt("stats.blocks-placed", 0));
+        data.setBlocksBroken(config.getInt("stats.blocks-broken", 0));
+        data.setMoneyCollected(config.getDouble("stats.money-collected", 0));
+        data.setGemsCollected(config.getInt("stats.gems-collected", 0));
+        data.setPlaytime(config.getLong("stats.playtime", 0));
+        data.setFirstJoin(config.getLong("first-join", System.currentTimeMillis()));
+        data.setLastJoin(config.getLong("last-join", System.currentTimeMillis()));
+
+        return data;
+    }
+
+    @Override
+    public void forEachPlayer(Consumer<PlayerData> action) {
+        File[] files = playersFolder.listFiles((dir, name) -> name.endsWith(".yml"));
+        if (files == null) return;
+
+        for (File file : files) {
+            String uuidString = file.getName().replace(".yml", "");
+            try {
+                PlayerData data = loadPlayer(UUID.fromString(uuidString));
+                if (data != null) {
+                    action.accept(data);
+                }
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Invalid UUID in file: " + file.getName());
+            }
+        }
+    }
+
+    @Override
+    public boolean savePlayer(PlayerData data) {
+        File playerFile = new File(playersFolder, data.getUuid().toString() + ".yml");
+        FileConfiguration config = new YamlConfiguration();
+
+        config.set("level", data.getLevel());
+        config.set("experience", data.getExperience());
+        config.set("gems", data.getGems());
+        config.set("generators-placed", data.getGeneratorsPlaced());
+
+        // Save statistics
+        config.set("stats.kills", data.getKills());
+        config.set("stats.deaths", data.getDeaths());
+        config.set("stats.blocks-placed", data.getBlocksPlaced());
+        config.set("stats.blocks-broken", data.getBlocksBroken());
+        config.set("stats.money-collected", data.getMoneyCollected());
+        config.set("stats.gems-collected", data.getGemsCollected());
+        config.set("stats.playtime", data.getPlaytime());
+        config.set("first-join", data.getFirstJoin());
+        config.set("last-join", data.getLastJoin());
+
+        try {
+            config.save(playerFile);
+            data.setSynced(data.copy());
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not save player data for " + data.getUuid());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public boolean savePlayers(Collection<PlayerData> players) {
+        boolean saved = true;
+        for (PlayerData data : players) {
+            saved &= savePlayer(data);
+        }
+        return saved;
+    }
+
+    @Override
+    public Map<Location, DataManager.GeneratorData> loadGenerators() {
+        Map<Location, DataManager.GeneratorData> generators = new HashMap<>();
+
+        FileConfiguration config = YamlConfiguration.loadConfiguration(generatorsFile);
+        ConfigurationSection section = config.getConfigurationSection("generators");
+
+        if (section == null) {
+            return generators;
+        }
+
+        for (String key : section.getKeys(false)) {
+            ConfigurationSection genSection = section.getConfigurationSection(key);
+            if (genSection == null) continue;
+
+            try {
+                String worldName = genSection.getString("world");
+                int x = genSection.getInt("x");
+                int y = genSection.getInt("y");
+                int z = genSection.getInt("z");
+                int tier = genSection.getInt("tier");
+                String ownerString = genSection.getString("owner");
+                long storedMoney = genSection.getLong("stored-money", 0);
+                long storedGems = genSection.getLong("stored-gems", 0);
+                int storedItems = genSection.getInt("stored-items", 0);
+                long parkedSince = genSection.getLong("parked-since", 0);
+                String parkReason = genSection.getString("parked-reason", "UNLOADED");
+                int count = genSection.getInt("count", 1);
+
+                UUID owner = parseOwner(ownerString, "generator");
+
+                Location location = new Location(
+                        Bukkit.getWorld(worldName),
+                        x, y, z
+                );
+
+                if (location.getWorld() != null) {
+                    DataManager.GeneratorData data = new DataManager.GeneratorData(tier, owner);
+                    data.store(storedMoney, storedGems, storedItems);
+                    data.park(parkedSince, parseParkReason(parkReason));
+                    data.setCount(count);
+                    generators.put(location, data);
+                }
+            } catch (Exception e) {
+                plugin.getLogger().warning("Error loading generator at key: " + key);
+            }
+        }
+
+        return generators;
+    }
+
+    private DataManager.ParkReason parseParkReason(String reason) {
+        try {
+            return DataManager.ParkReason.valueOf(reason.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Invalid park reason in generator data: " + reason);
+            return DataManager.ParkReason.UNLOADED;
+        }
+    }
+
+    @Override
+    public boolean saveGenerators(Map<Location, DataManager.GeneratorData> generators, Collection<Location> removed) {
+        FileConfiguration config = new YamlConfiguration();
+
+        int index = 0;
+        for (Map.Entry<Location, DataManager.GeneratorData> entry : generators.entrySet()) {
+            Location loc = entry.getKey();
+            DataManager.GeneratorData data = entry.getValue();
+
+            String path = "generators." + index;
+            config.set(path + ".world", loc.getWorld().getName());
+            config.set(path + ".x", loc.getBlockX());
+            config.set(path + ".y", loc.getBlockY());
+            config.set(path + ".z", loc.getBlockZ());
+            config.set(path + ".tier", data.getTier());
+            config.set(path + ".owner", data.getOwner() != null ? data.getOwner().toString() : "");
+            if (data.getCount() > 1) {
+                config.set(path + ".count", data.getCount());
+            }
+
+            // Vault mode storage
+            if (data.getStoredItems() > 0) {
+                config.set(path + ".stored-money", data.getStoredMoney());
+                config.set(path + ".stored-gems", data.getStoredGems());
+                config.set(path + ".stored-items", data.getStoredItems());
+            }
+
+            // Offline accrual
+            if (data.getParkedSince() > 0) {
+                config.set(path + ".parked-since", data.getParkedSince());
+                config.set(path + ".parked-reason", data.getParkReason().name());
+            }
+
+            index++;
+        }
+
+        try {
+            config.save(generatorsFile);
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not save generator locations!");
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public Map<Location, DefenseDataManager.DefenseBlockData> loadDefenseBlocks() {
+        Map<Location, DefenseDataManager.DefenseBlockData> defenses = new HashMap<>();
+
+        FileConfiguration config = YamlConfiguration.loadConfiguration(defenseFile);
+        ConfigurationSection section = config.getConfigurationSection("defenses");
+
+        if (section == null) {
+            return defenses;
+        }
+
+        for (String key : section.getKeys(false)) {
+            ConfigurationSection defSection = section.getConfigurationSection(key);
+            if (defSection == null) continue;
+
+            try {
+                String worldName = defSection.getString("world");
+                int x = defSection.getInt("x");
+                int y = defSection.getInt("y");
+                int z = defSection.getInt("z");
+                int tier = defSection.getInt("tier");
+                int currentHearts = defSection.getInt("current-hearts");
+                UUID owner = parseOwner(defSection.getString("owner"), "defense");
+
+                Location location = new Location(
+                        Bukkit.getWorld(worldName),
+                        x, y, z
+                );
+
+                if (location.getWorld() != null) {
+                    defenses.put(location, new DefenseDataManager.DefenseBlockData(tier, currentHearts, owner));
+                }
+            } catch (Exception e) {
+                plugin.getLogger().warning("Error loading defense block at key: " + key);
+                e.printStackTrace();
+            }
+        }
+
+        return defenses;
+    }
+
+    @Override
+    public boolean saveDefenseBlocks(Map<Location, DefenseDataManager.DefenseBlockData> defenses, Collection<Location> removed) {
+        FileConfiguration config = new YamlConfiguration();
+
+        int index = 0;
+        for (Map.Entry<Location, DefenseDataManager.DefenseBlockData> entry : defenses.entrySet()) {
+            Location loc = entry.getKey();
+            DefenseDataManager.DefenseBlockData data = entry.getValue();
+
+            String path = "defenses." + index;
+            config.set(path + ".world", loc.getWorld().getName());
+            config.set(path + ".x", loc.getBlockX());
+            config.set(path + ".y", loc.getBlockY());
+            config.set(path + ".z", loc.getBlockZ());
+            config.set(path + ".tier", data.getTier());
+            config.set(path + ".current-hearts", data.getCurrentHearts());
+            config.set(path + ".owner", data.getOwner() != null ? data.getOwner().toString() : "");
+
+            index++;
+        }
+
+        try {
+            config.save(defenseFile);
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not save defense blocks!");
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public Map<Location, CollectorManager.CollectorData> loadCollectors() {
+        Map<Location, CollectorManager.CollectorData> collectors = new HashMap<>();
+
+        FileConfiguration config = YamlConfiguration.loadConfiguration(collectorsFile);
+        ConfigurationSection section = config.getConfigurationSection("collectors");
+
+        if (section == null) {
+            return collectors;
+        }
+
+        for (String key : section.getKeys(false)) {
+            ConfigurationSection colSection = section.getConfigurationSection(key);
+            if (colSection == null) continue;
+
+            try {
+                String worldName = colSection.getString("world");
+                int x = colSection.getInt("x");
+                int y = colSection.getInt("y");
+                int z = colSection.getInt("z");
+                UUID owner = parseOwner(colSection.getString("owner"), "collector");
+
+                Location location = new Location(Bukkit.getWorld(worldName), x, y, z);
+
+                if (location.getWorld() != null) {
+                    CollectorManager.CollectorData data = new CollectorManager.CollectorData(location, owner);
+                    data.add(colSection.getLong("money", 0), colSection.getLong("gems", 0));
+                    collectors.put(location, data);
+                }
+            } catch (Exception e) {
+                plugin.getLogger().warning("Error loading collector at key: " + key);
+            }
+        }
+
+        return collectors;
+    }
+
+    @Override
+    public boolean saveCollectors(Map<Location, CollectorManager.CollectorData> collectors, Collection<Location> removed) {
+        FileConfiguration config = new YamlConfiguration();
+
+        int index = 0;
+        for (Map.Entry<Location, CollectorManager.CollectorData> entry : collectors.entrySet()) {
+            Location loc = entry.getKey();
+            CollectorManager.CollectorData data = entry.getValue();
+
+            String path = "collectors." + index;
+            config.set(path + ".world", loc.getWorld().getName());
+            config.set(path + ".x", loc.getBlockX());
+            config.set(path + ".y", loc.getBlockY());
+            config.set(path + ".z", loc.getBlockZ());
+            config.set(path + ".owner", data.getOwner() != null ? data.getOwner().toString() : "");
+            config.set(path + ".money", data.getMoney());
+            config.set(path + ".gems", data.getGems());
+
+            index++;
+        }
+
+        try {
+            config.save(collectorsFile);
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not save collectors!");
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public List<BoosterManager.Booster> loadBoosters() {
+        List<BoosterManager.Booster> boosters = new ArrayList<>();
+
+        FileConfiguration config = YamlConfiguration.loadConfiguration(boostersFile);
+        ConfigurationSection section = config.getConfigurationSection("boosters");
+
+        if (section == null) {
+            return boosters;
+        }
+
+        for (String key : section.getKeys(false)) {
+            ConfigurationSection boosterSection = section.getConfigurationSection(key);
+            if (boosterSection == null) continue;
+
+            try {
+                String ownerString = boosterSection.getString("owner", "");
+                UUID owner = ownerString.isEmpty() ? null : UUID.fromString(ownerString);
+                BoosterManager.Type type = BoosterManager.Type.valueOf(boosterSection.getString("type", "MONEY").toUpperCase());
+                double multiplier = boosterSection.getDouble("multiplier", 1.0);
+                long expiresAt = boosterSection.getLong("expires-at", 0);
+
+                boosters.add(new BoosterManager.Booster(owner, type, multiplier, expiresAt));
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Error loading booster at key: " + key);
+            }
+        }
+
+        return boosters;
+    }
+
+    @Override
+    public boolean saveBoosters(Collection<BoosterManager.Booster> boosters) {
+        FileConfiguration config = new YamlConfiguration();
+
+        int index = 0;
+        for (BoosterManager.Booster booster : boosters) {
+            String path = "boosters." + index;
+            config.set(path + ".owner", booster.getOwner() != null ? booster.getOwner().toString() : "");
+            config.set(path + ".type", booster.getType().name());
+            config.set(path + ".multiplier", booster.getMultiplier());
+            config.set(path + ".expires-at", booster.getExpiresAt());
+
+            index++;
+        }
+
+        try {
+            config.save(boostersFile);
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not save boosters!");
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private UUID parseOwner(String ownerString, String type) {
+        if (ownerString == null || ownerString.isEmpty()) return null;
+
+        try {
+            return UUID.fromString(ownerString);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Invalid owner UUID in " + type + " data: " + ownerString);
+            return null;
+        }
+    }
+}
@@ -26,6 +26,14 @@ public class PlayerData {
     private long firstJoin;
     private long lastJoin;
 
+    // Storage row version this data was loaded or last saved at (SQL storage, 0 = no row yet),
+    // set by the save thread under the save lock
+    private volatile long version;
+    // Values as last loaded or saved, changes made by other servers are merged on top of the difference
+    private volatile PlayerData synced;
+    // Changed since the last load or save (the auto-save skips clean players)
+    private volatile boolean dirty;
+
     public PlayerData(UUID uuid) {
         this.uuid = uuid;
         this.level = 1;
@@ -56,10 +64,12 @@ public class PlayerData {
 
     public void setLevel(int level) {
         this.level = level;
+        dirty = true;
     }
 
     public void addLevel(int amount) {
         this.level += amount;
+        dirty = true;
     }
 
     // Experience
@@ -69,14 +79,17 @@ public class PlayerData {
 
     public void setExperience(int experience) {
         this.experience = Math.max(0, experience);
+        dirty = true;
     }
 
     public void addExperience(int amount) {
         this.experience += amount;
+        dirty = true;
     }
 
     public void removeExperience(int amount) {
         this.experience = Math.max(0, this.experience - amount);
+        dirty = true;
     }
 
     // Gems
@@ -86,14 +99,17 @@ public class PlayerData {
 
     public void setGems(int gems) {
         this.gems = Math.max(0, gems);
+        dirty = true;
     }
 
     public void addGems(int amount) {
         this.gems += amount;
+        dirty = true;
     }
 
     public void removeGems(int amount) {
         this.gems = Math.max(0, this.gems - amount);
+        dirty = true;
     }
 
     public boolean hasGems(int amount) {
@@ -107,14 +123,22 @@ public class PlayerData {
 
     public void setGeneratorsPlaced(int generatorsPlaced) {
         this.generatorsPlaced = Math.max(0, generatorsPlaced);
+        dirty = true;
     }
 
     public void addGenerator() {
         this.generatorsPlaced++;
+        dirty = true;
     }
 
     public void removeGenerator() {
         this.generatorsPlaced = Math.max(0, this.generatorsPlaced - 1);
+        dirty = true;
+    }
+
+    public void removeGenerators(int amount) {
+        this.generatorsPlaced = Math.max(0, this.generatorsPlaced - amount);
+        dirty = true;
     }
 
     // Kills
@@ -124,10 +148,12 @@ public class PlayerData {
 
     public void setKills(int kills) {
         this.kills = Math.max(0, kills);
+        dirty = true;
     }
 
     public void addKill() {
         this.kills++;
+        dirty = true;
     }
 
     // Deaths
@@ -137,10 +163,12 @@ public class PlayerData {
 
     public void setDeaths(int deaths) {
         this.deaths = Math.max(0, deaths);
+        dirty = true;
     }
 
     public void addDeath() {
         this.deaths++;
+        dirty = true;
     }
 
     // K/D Ratio
@@ -158,10 +186,12 @@ public class PlayerData {
 
     public void setBlocksPlaced(int blocksPlaced) {
         this.blocksPlaced = Math.max(0, blocksPlaced);
+        dirty = true;
     }
 
     public void addBlockPlaced() {
         this.blocksPlaced++;
+        dirty = true;
     }
 
     // Blocks Broken
@@ -171,10 +201,12 @@ public class PlayerData {
 
     public void setBlocksBroken(int blocksBroken) {
         this.blocksBroken = Math.max(0, blocksBroken);
+        dirty = true;
     }
 
     public void addBlockBroken() {
         this.blocksBroken++;
+        dirty = true;
     }
 
     // Money Collected
@@ -184,10 +216,12 @@ public class PlayerData {
 
     public void setMoneyCollected(double moneyCollected) {
         this.moneyCollected = Math.max(0, moneyCollected);
+        dirty = true;
     }
 
     public void addMoneyCollected(double amount) {
         this.moneyCollected += amount;
+        dirty = true;
     }
 
     // Gems Collected
@@ -197,10 +231,12 @@ public class PlayerData {
 
     public void setGemsCollected(int gemsCollected) {
         this.gemsCollected = Math.max(0, gemsCollected);
+        dirty = true;
     }
 
     public void addGemsCollected(int amount) {
         this.gemsCollected += amount;
+        dirty = true;
     }
 
     // Playtime
@@ -210,10 +246,12 @@ public class PlayerData {
 
     public void setPlaytime(long playtime) {
         this.playtime = Math.max(0, playtime);
+        dirty = true;
     }
 
     public void addPlaytime(long seconds) {
         this.playtime += seconds;
+        dirty = true;
     }
 
     /**
@@ -222,7 +260,10 @@ public class PlayerData {
     public void updateSessionPlaytime() {
         long currentTime = System.currentTimeMillis();
         long sessionDuration = (currentTime - sessionStart) / 1000; // Convert to seconds
-        this.playtime += sessionDuration;
+        if (sessionDuration > 0) {
+            this.playtime += sessionDuration;
+            dirty = true;
+        }
         this.sessionStart = currentTime; // Reset session start
     }
 
@@ -242,6 +283,7 @@ public class PlayerData {
 
     public void setFirstJoin(long firstJoin) {
         this.firstJoin = firstJoin;
+        dirty = true;
     }
 
     // Last join
@@ -251,6 +293,7 @@ public class PlayerData {
 
     public void setLastJoin(long lastJoin) {
         this.lastJoin = lastJoin;
+        dirty = true;
     }
 
     /**
@@ -258,6 +301,81 @@ public class PlayerData {
      */
     public void updateLastJoin() {
         this.lastJoin = System.currentTimeMillis();
+        dirty = true;
+    }
+
+    // Dirty state, set by every change to a stored value and cleared when the data is saved
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void markDirty() {
+        this.dirty = true;
+    }
+
+    /**
+     * Clears the dirty flag and returns whether it was set, only one saver gets true for a change
+     */
+    public synchronized boolean clearDirty() {
+        boolean wasDirty = dirty;
+        this.dirty = false;
+        return wasDirty;
+    }
+
+    // Storage sync state
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public PlayerData getSynced() {
+        return synced;
+    }
+
+    public void setSynced(PlayerData synced) {
+        this.synced = synced;
+    }
+
+    /**
+     * Adds (to - from) of every counter, join times are left alone. Does not mark the data dirty,
+     * it is used to take over changes that are already stored.
+     */
+    public void addDifference(PlayerData to, PlayerData from) {
+        level += to.level - from.level;
+        experience += to.experience - from.experience;
+        gems += to.gems - from.gems;
+        generatorsPlaced += to.generatorsPlaced - from.generatorsPlaced;
+        kills += to.kills - from.kills;
+        deaths += to.deaths - from.deaths;
+        blocksPlaced += to.blocksPlaced - from.blocksPlaced;
+        blocksBroken += to.blocksBroken - from.blocksBroken;
+        moneyCollected += to.moneyCollected - from.moneyCollected;
+        gemsCollected += to.gemsCollected - from.gemsCollected;
+        playtime += to.playtime - from.playtime;
+    }
+
+    /**
+     * Copies the stored values (not the session or sync state)
+     */
+    public PlayerData copy() {
+        PlayerData copy = new PlayerData(uuid);
+        copy.level = level;
+        copy.experience = experience;
+        copy.gems = gems;
+        copy.generatorsPlaced = generatorsPlaced;
+        copy.kills = kills;
+        copy.deaths = deaths;
+        copy.blocksPlaced = blocksPlaced;
+        copy.blocksBroken = blocksBroken;
+        copy.moneyCollected = moneyCollected;
+        copy.gemsCollected = gemsCollected;
+        copy.playtime = playtime;
+        copy.firstJoin = firstJoin;
+        copy.lastJoin = lastJoin;
+        return copy;
     }
 
     @Override
@@ -0,0 +1,82 @@
+package com.pallux.genpvp.managers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GemCountdownTest {
+
+    @Test
+    void sampledCyclesAverageOneOverChance() {
+        SplittableRandom random = new SplittableRandom(42);
+        double chance = 0.01;
+        int samples = 200_000;
+
+        long total = 0;
+        for (int i = 0; i < samples; i++) {
+            long cycles = GemCountdown.sampleCycles(random, chance);
+            assertTrue(cycles >= 1);
+            total += cycles;
+        }
+
+        double mean = (double) total / samples;
+        assertEquals(1 / chance, mean, 2.0);
+    }
+
+    @Test
+    void dropRateMatchesChance() {
+        GemCountdown countdown = new GemCountdown(7);
+        double chance = 0.05;
+        long rolls = 0;
+        long drops = 0;
+
+        // Uneven batches, like stacks of different sizes
+        for (int i = 0; i < 200_000; i++) {
+            long batch = 1 + i % 9;
+            drops += countdown.countDrops(batch, chance);
+            rolls += batch;
+        }
+
+        assertEquals(chance, (double) drops / rolls, chance * 0.02);
+    }
+
+    @Test
+    void batchingDoesNotChangeTheOutcome() {
+        GemCountdown batched = new GemCountdown(123);
+        GemCountdown single = new GemCountdown(123);
+
+        long singleDrops = 0;
+        for (int i = 0; i < 10_000; i++) {
+            singleDrops += single.countDrops(1, 0.02);
+        }
+
+        assertEquals(singleDrops, batched.countDrops(10_000, 0.02));
+    }
+
+    @Test
+    void sameSeedAndPositionReproduceTheSameDrops() {
+        long seed = GemCountdown.getSeed(1234, "world", 10, 64, -20);
+        assertEquals(seed, GemCountdown.getSeed(1234, "world", 10, 64, -20));
+
+        GemCountdown first = new GemCountdown(seed);
+        GemCountdown second = new GemCountdown(seed);
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(first.countDrops(50, 0.01), second.countDrops(50, 0.01));
+        }
+    }
+
+    @Test
+    void seedDependsOnGemSeedAndPosition() {
+        long seed = GemCountdown.getSeed(1234, "world", 10, 64, -20);
+
+        assertNotEquals(seed, GemCountdown.getSeed(1235, "world", 10, 64, -20));
+        assertNotEquals(seed, GemCountdown.getSeed(1234, "world_nether", 10, 64, -20));
+        assertNotEquals(seed, GemCountdown.getSeed(1234, "world", 11, 64, -20));
+        assertNotEquals(seed, GemCountdown.getSeed(1234, "world", 10, 65, -20));
+        assertNotEquals(seed, GemCountdown.getSeed(1234, "world", 10, 64, -21));
+    }
+}
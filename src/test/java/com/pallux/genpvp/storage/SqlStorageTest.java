@@ -0,0 +1,232 @@
+package com.pallux.genpvp.storage;
+
+import com.pallux.genpvp.utils.PlayerData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlStorageTest {
+
+    private Connection connection;
+    // Second connection to the same database, plays the other server
+    private Connection otherServer;
+    private TestStorage storage;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL";
+        connection = DriverManager.getConnection(url);
+        otherServer = DriverManager.getConnection(url);
+        storage = new TestStorage(connection);
+        storage.createSchema(connection);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        otherServer.close();
+        connection.close();
+    }
+
+    @Test
+    void newPlayerIsInsertedWithTheFirstVersion() {
+        PlayerData data = new PlayerData(UUID.randomUUID());
+        data.setKills(3);
+
+        assertTrue(storage.savePlayer(data));
+        assertEquals(1, data.getVersion());
+        assertEquals(3, data.getSynced().getKills());
+
+        PlayerData stored = storage.loadPlayer(data.getUuid());
+        assertNotNull(stored);
+        assertEquals(3, stored.getKills());
+        assertEquals(1, stored.getVersion());
+    }
+
+    @Test
+    void unchangedRowAdvancesTheVersion() {
+        PlayerData data = savedPlayer(1);
+
+        data.setKills(5);
+        assertTrue(storage.savePlayer(data));
+        assertEquals(2, data.getVersion());
+
+        PlayerData stored = storage.loadPlayer(data.getUuid());
+        assertEquals(5, stored.getKills());
+        assertEquals(2, stored.getVersion());
+    }
+
+    @Test
+    void rowChangedBeforeOurUpdateIsMerged() {
+        PlayerData local = savedPlayer(10);
+        PlayerData untouched = savedPlayer(1);
+
+        local.setKills(11);
+        local.setGems(5);
+        untouched.setKills(2);
+
+        // The other server commits after we read our version and before our update runs
+        storage.beforePlayerUpdate = () -> {
+            storage.beforePlayerUpdate = null;
+            otherServerAddsKills(local.getUuid(), 3);
+        };
+        assertTrue(storage.savePlayers(Arrays.asList(local, untouched)));
+
+        // Our +1 kill and +5 gems on top of their +3 kills
+        PlayerData stored = storage.loadPlayer(local.getUuid());
+        assertEquals(14, stored.getKills());
+        assertEquals(5, stored.getGems());
+        assertEquals(3, stored.getVersion());
+
+        // The snapshot keeps its values, the written row carries the merge
+        assertEquals(11, local.getKills());
+        assertEquals(14, local.getSynced().getKills());
+        assertEquals(3, local.getVersion());
+
+        // Rows nobody touched are written as they are
+        PlayerData storedUntouched = storage.loadPlayer(untouched.getUuid());
+        assertEquals(2, storedUntouched.getKills());
+        assertEquals(2, storedUntouched.getVersion());
+        assertEquals(2, untouched.getVersion());
+    }
+
+    @Test
+    void failedSaveLeavesTheSnapshotUnchanged() throws SQLException {
+        PlayerData data = savedPlayer(1);
+        PlayerData synced = data.getSynced();
+        data.setKills(2);
+
+        connection.close();
+
+        // Logged through the storage logger, reported as failed
+        assertFalse(storage.savePlayer(data));
+        assertEquals(1, data.getVersion());
+        assertSame(synced, data.getSynced());
+        assertNull(storage.loadPlayer(data.getUuid()));
+    }
+
+    private PlayerData savedPlayer(int kills) {
+        PlayerData data = new PlayerData(UUID.randomUUID());
+        data.setKills(kills);
+        assertTrue(storage.savePlayer(data));
+        return data;
+    }
+
+    private void otherServerAddsKills(UUID uuid, int kills) {
+        try (PreparedStatement statement = otherServer.prepareStatement(
+                "UPDATE genpvp_players SET kills = kills + ?, version = version + 1 WHERE uuid = ?")) {
+            statement.setInt(1, kills);
+            statement.setString(2, uuid.toString());
+            assertEquals(1, statement.executeUpdate());
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * SqlStorage on one H2 connection in MySQL mode, without a plugin
+     */
+    private static class TestStorage extends SqlStorage {
+
+        private static final Logger LOGGER = Logger.getLogger("GenPvP");
+
+        private final Connection connection;
+        // Runs right before a versioned player update executes
+        private Runnable beforePlayerUpdate;
+
+        TestStorage(Connection connection) {
+            super(null, "genpvp_");
+            this.connection = connection;
+        }
+
+        @Override
+        protected Connection getConnection() {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")
+                                && ((String) args[0]).startsWith("UPDATE " + playersTable)) {
+                            return withUpdateHook(statement);
+                        }
+                        return result;
+                    });
+        }
+
+        private PreparedStatement withUpdateHook(PreparedStatement statement) {
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                        Runnable hook = beforePlayerUpdate;
+                        if (hook != null && method.getName().equals("executeUpdate")) {
+                            hook.run();
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        @Override
+        protected void releaseConnection(Connection connection) {
+            // The connection stays open for the whole test
+        }
+
+        @Override
+        protected Logger getLogger() {
+            return LOGGER;
+        }
+
+        @Override
+        protected String getUpsertSql(String table, String[] keyColumns, String[] valueColumns) {
+            StringJoiner updates = new StringJoiner(", ");
+            for (String column : valueColumns) {
+                updates.add(column + " = VALUES(" + column + ")");
+            }
+
+            return "INSERT INTO " + table + " " + getInsertColumns(keyColumns, valueColumns)
+                    + " ON DUPLICATE KEY UPDATE " + updates;
+        }
+
+        @Override
+        protected String getLockingReadSuffix() {
+            return " FOR UPDATE";
+        }
+
+        @Override
+        public boolean init() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String getName() {
+            return "H2";
+        }
+    }
+}